@@ -0,0 +1,28 @@
+package minesweeper.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs every benchmark in this package, or those matching the first argument, and
+// writes the results as JSON to the second argument (bench-results.json by default) so
+// runs can be compared between releases
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {
+  }
+
+  // runs the benchmarks
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : BenchmarkMain.class.getPackage().getName();
+    String output = args.length > 1 ? args[1] : "bench-results.json";
+    Options options = new OptionsBuilder()
+        .include(include)
+        .resultFormat(ResultFormatType.JSON)
+        .result(output)
+        .build();
+    new Runner(options).run();
+  }
+}
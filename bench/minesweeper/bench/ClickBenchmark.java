@@ -0,0 +1,85 @@
+package minesweeper.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import javalib.worldimages.Posn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures the cost of one click through onMouseClicked: the first left click of a
+// game, which places the mines and opens the area around the click, and a right click
+// that flags or unflags a cell followed by the frame that shows it
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ClickBenchmark {
+  // the tile size of the board, as in IUtils.CELL_SIZE
+  static final int CELL_SIZE = 50;
+
+  // a first-click-safe world of the given size and density
+  @State(Scope.Thread)
+  public static class Sized {
+    @Param({ "10", "30", "100" })
+    public int size;
+    @Param({ "0.12", "0.20" })
+    public double density;
+    Object world;
+    Posn center;
+
+    // creates the world
+    void create() throws Throwable {
+      this.world = Hooks.NEW_SEEDED_WORLD.invoke(this.size, this.size,
+          Hooks.mines(this.size, this.size, this.density), 1L, true);
+      int middle = this.size / 2 * CELL_SIZE + CELL_SIZE / 2;
+      this.center = new Posn(middle, middle);
+    }
+  }
+
+  // a world that hasn't been clicked yet
+  public static class Fresh extends Sized {
+    // creates the world
+    @Setup(Level.Invocation)
+    public void setUpFresh() throws Throwable {
+      this.create();
+    }
+  }
+
+  // a world in play whose first frame has been drawn
+  public static class Playing extends Sized {
+    // creates the world, opens it and draws it
+    @Setup(Level.Trial)
+    public void setUpPlaying() throws Throwable {
+      this.create();
+      Hooks.ON_MOUSE_CLICKED.invoke(this.world, this.center, "LeftButton");
+      Hooks.MAKE_SCENE.invoke(this.world);
+    }
+  }
+
+  // measures the first left click
+  @Benchmark
+  public Object firstReveal(Fresh state) throws Throwable {
+    Hooks.ON_MOUSE_CLICKED.invoke(state.world, state.center, "LeftButton");
+    return state.world;
+  }
+
+  // measures a right click on a corner cell and the frame after it
+  @Benchmark
+  public Object flagAndDraw(Playing state) throws Throwable {
+    Hooks.ON_MOUSE_CLICKED.invoke(state.world, new Posn(CELL_SIZE / 2, CELL_SIZE / 2),
+        "RightButton");
+    return Hooks.MAKE_SCENE.invoke(state.world);
+  }
+}
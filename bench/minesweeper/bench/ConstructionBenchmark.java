@@ -0,0 +1,112 @@
+package minesweeper.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures building a board: the whole constructor, and each of its phases on a world
+// that has been brought up to just before that phase
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConstructionBenchmark {
+
+  // a square board size and mine density
+  @State(Scope.Thread)
+  public static class Sized {
+    @Param({ "10", "30", "100" })
+    public int size;
+    @Param({ "0.12", "0.20" })
+    public double density;
+    Object world;
+
+    // returns a world of this size taken through the given number of setup phases
+    Object stage(int phases) throws Throwable {
+      return Hooks.stage(this.size, this.size, Hooks.mines(this.size, this.size, this.density),
+          1, phases);
+    }
+  }
+
+  // a world that has not been set up at all
+  public static class Empty extends Sized {
+    // creates the world
+    @Setup(Level.Invocation)
+    public void setUpEmpty() throws Throwable {
+      this.world = this.stage(0);
+    }
+  }
+
+  // a world with its grid
+  public static class Gridded extends Sized {
+    // creates the world and its grid
+    @Setup(Level.Invocation)
+    public void setUpGridded() throws Throwable {
+      this.world = this.stage(1);
+    }
+  }
+
+  // a world with its grid and mines
+  public static class Mined extends Sized {
+    // creates the world, its grid and its mines
+    @Setup(Level.Invocation)
+    public void setUpMined() throws Throwable {
+      this.world = this.stage(2);
+    }
+  }
+
+  // a world with its grid, mines and neighbours
+  public static class Linked extends Sized {
+    // creates the world, its grid, its mines and the neighbours of its cells
+    @Setup(Level.Invocation)
+    public void setUpLinked() throws Throwable {
+      this.world = this.stage(3);
+    }
+  }
+
+  // measures the whole constructor
+  @Benchmark
+  public Object construct(Sized state) throws Throwable {
+    return state.stage(4);
+  }
+
+  // measures makeGrid
+  @Benchmark
+  public Object makeGrid(Empty state) throws Throwable {
+    Hooks.MAKE_GRID.invoke(state.world);
+    return state.world;
+  }
+
+  // measures addMines
+  @Benchmark
+  public Object addMines(Gridded state) throws Throwable {
+    Hooks.ADD_MINES.invoke(state.world);
+    return state.world;
+  }
+
+  // measures findNeighbors
+  @Benchmark
+  public Object findNeighbors(Mined state) throws Throwable {
+    Hooks.FIND_NEIGHBORS.invoke(state.world);
+    return state.world;
+  }
+
+  // measures countAllMines
+  @Benchmark
+  public Object countAllMines(Linked state) throws Throwable {
+    Hooks.COUNT_ALL_MINES.invoke(state.world);
+    return state.world;
+  }
+}
@@ -0,0 +1,89 @@
+package minesweeper.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures the worst case of a flood fill, a reveal that opens every cell but one: on
+// the Cell grid of the World, and on the packed and sentinel-padded boards of a headless
+// Game, which are not limited to 100x100
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FloodFillBenchmark {
+
+  // the first cell of a world whose only mine is in its last cell
+  @State(Scope.Thread)
+  public static class Open {
+    @Param({ "10", "30", "100" })
+    public int size;
+    Object corner;
+
+    // creates the world
+    @Setup(Level.Invocation)
+    public void setUp() throws Throwable {
+      this.corner = Hooks.cell(Hooks.openWorld(this.size, this.size), 0, 0);
+    }
+  }
+
+  // a headless game with one mine, placed away from the first reveal
+  @State(Scope.Thread)
+  public static class Packed {
+    @Param({ "100", "1000", "2000" })
+    public int size;
+    Object game;
+
+    // creates the game
+    @Setup(Level.Invocation)
+    public void setUp() throws Throwable {
+      this.game = Hooks.NEW_GAME.invoke(this.size, this.size, 1, 1L, true);
+    }
+  }
+
+  // a headless game on a sentinel-padded board with one mine, placed away from the first
+  // reveal
+  @State(Scope.Thread)
+  public static class Padded {
+    @Param({ "100", "1000", "2000" })
+    public int size;
+    Object game;
+
+    // creates the game
+    @Setup(Level.Invocation)
+    public void setUp() throws Throwable {
+      Object board = Hooks.NEW_PADDED_BOARD.invoke(this.size, this.size);
+      this.game = Hooks.NEW_GAME_ON.invoke(board, 1, 1L, true);
+    }
+  }
+
+  // measures Cell.reveal flooding the grid
+  @Benchmark
+  public Object cellReveal(Open state) throws Throwable {
+    return Hooks.CELL_REVEAL.invoke(state.corner);
+  }
+
+  // measures Game.reveal flooding the packed board
+  @Benchmark
+  public Object packedReveal(Packed state) throws Throwable {
+    return Hooks.GAME_REVEAL.invoke(state.game, 0, 0);
+  }
+
+  // measures Game.reveal flooding the sentinel-padded board
+  @Benchmark
+  public Object paddedReveal(Padded state) throws Throwable {
+    return Hooks.GAME_REVEAL.invoke(state.game, 0, 0);
+  }
+}
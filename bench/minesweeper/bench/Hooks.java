@@ -0,0 +1,156 @@
+package minesweeper.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Random;
+
+import javalib.worldimages.Posn;
+
+// Handles on the game classes for the benchmarks. The game lives in the default package
+// with package-private classes, which code in a named package (and JMH refuses to
+// generate code for benchmarks in the default package) can only reach by reflection, so
+// every member the benchmarks use is looked up once here and held in a constant handle
+// that the JIT inlines like a direct call
+final class Hooks {
+  static final MethodHandle NEW_WORLD;
+  static final MethodHandle NEW_SEEDED_WORLD;
+  static final MethodHandle MAKE_GRID;
+  static final MethodHandle ADD_MINES;
+  static final MethodHandle PLACE_MINES;
+  static final MethodHandle FIND_NEIGHBORS;
+  static final MethodHandle COUNT_ALL_MINES;
+  static final MethodHandle ON_MOUSE_CLICKED;
+  static final MethodHandle MAKE_SCENE;
+  static final MethodHandle LAST_SCENE;
+  static final MethodHandle GET_GRID;
+  static final MethodHandle SET_SCENE;
+  static final MethodHandle CELL_REVEAL;
+  static final MethodHandle NEW_GAME;
+  static final MethodHandle NEW_GAME_ON;
+  static final MethodHandle NEW_PADDED_BOARD;
+  static final MethodHandle GAME_REVEAL;
+  static final MethodHandle GAME_STATUS;
+  static final MethodHandle SCALAR_KERNEL;
+  static final MethodHandle VECTOR_KERNEL;
+  static final MethodHandle KERNEL_COUNT_ALL;
+  static final MethodHandle KERNEL_FRONTIER;
+  static final MethodHandle PADDED_CELLS;
+
+  static {
+    try {
+      Class<?> world = Class.forName("Minesweeper");
+      Class<?> cell = Class.forName("Cell");
+      Class<?> game = Class.forName("Game");
+      NEW_WORLD = Hooks.constructor(world, int.class, int.class, int.class, Random.class);
+      NEW_SEEDED_WORLD = Hooks.constructor(world, int.class, int.class, int.class, long.class,
+          boolean.class);
+      MAKE_GRID = Hooks.method(world, "makeGrid");
+      ADD_MINES = Hooks.method(world, "addMines");
+      PLACE_MINES = Hooks.method(world, "placeMines", int[].class);
+      FIND_NEIGHBORS = Hooks.method(world, "findNeighbors");
+      COUNT_ALL_MINES = Hooks.method(world, "countAllMines");
+      ON_MOUSE_CLICKED = Hooks.method(world, "onMouseClicked", Posn.class, String.class);
+      MAKE_SCENE = Hooks.method(world, "makeScene");
+      LAST_SCENE = Hooks.method(world, "lastScene", String.class);
+      GET_GRID = Hooks.getter(world, "grid");
+      SET_SCENE = Hooks.setter(world, "scene");
+      CELL_REVEAL = Hooks.method(cell, "reveal");
+      NEW_GAME = Hooks.constructor(game, int.class, int.class, int.class, long.class,
+          boolean.class);
+      NEW_GAME_ON = Hooks.constructor(game, Class.forName("IBoard"), int.class, long.class,
+          boolean.class);
+      NEW_PADDED_BOARD = Hooks.constructor(Class.forName("PaddedBoard"), int.class, int.class);
+      GAME_REVEAL = Hooks.method(game, "reveal", int.class, int.class);
+      GAME_STATUS = Hooks.method(game, "status");
+      Class<?> kernels = Class.forName("Kernels");
+      Class<?> kernel = Class.forName("BoardKernel");
+      SCALAR_KERNEL = Hooks.getter(kernels, "SCALAR");
+      VECTOR_KERNEL = Hooks.getter(kernels, "VECTOR");
+      KERNEL_COUNT_ALL = Hooks.method(kernel, "countAll", byte[].class, int.class, int.class);
+      KERNEL_FRONTIER = Hooks.method(kernel, "frontier", byte[].class, int.class, int.class,
+          byte[].class);
+      PADDED_CELLS = Hooks.getter(Class.forName("PaddedBoard"), "cells");
+    }
+    catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private Hooks() {
+  }
+
+  // returns a handle on the given constructor of the given class
+  static MethodHandle constructor(Class<?> owner, Class<?>... params)
+      throws ReflectiveOperationException {
+    Constructor<?> constructor = owner.getDeclaredConstructor(params);
+    constructor.setAccessible(true);
+    return MethodHandles.lookup().unreflectConstructor(constructor);
+  }
+
+  // returns a handle on the given method of the given class
+  static MethodHandle method(Class<?> owner, String name, Class<?>... params)
+      throws ReflectiveOperationException {
+    Method method = owner.getDeclaredMethod(name, params);
+    method.setAccessible(true);
+    return MethodHandles.lookup().unreflect(method);
+  }
+
+  // returns a handle that reads the given field of the given class
+  static MethodHandle getter(Class<?> owner, String name) throws ReflectiveOperationException {
+    Field field = owner.getDeclaredField(name);
+    field.setAccessible(true);
+    return MethodHandles.lookup().unreflectGetter(field);
+  }
+
+  // returns a handle that writes the given field of the given class
+  static MethodHandle setter(Class<?> owner, String name) throws ReflectiveOperationException {
+    Field field = owner.getDeclaredField(name);
+    field.setAccessible(true);
+    return MethodHandles.lookup().unreflectSetter(field);
+  }
+
+  // returns a world of the given size with mines placed from the given seed, set up the
+  // way the Minesweeper constructor sets it up
+  static Object world(int rows, int columns, int mines, long seed) throws Throwable {
+    return Hooks.stage(rows, columns, mines, seed, 4);
+  }
+
+  // returns a world of the given size with mines from the given seed, taken through the
+  // given number of the constructor's phases: makeGrid, addMines, findNeighbors and
+  // countAllMines
+  static Object stage(int rows, int columns, int mines, long seed, int phases)
+      throws Throwable {
+    Object world = NEW_WORLD.invoke(rows, columns, mines, new Random(seed));
+    MethodHandle[] steps = { MAKE_GRID, ADD_MINES, FIND_NEIGHBORS, COUNT_ALL_MINES };
+    for (int k = 0; k < phases; k++) {
+      steps[k].invoke(world);
+    }
+    return world;
+  }
+
+  // returns a world of the given size whose only mine is in the last cell, so revealing
+  // the first cell floods every other cell: the worst case of a flood fill
+  static Object openWorld(int rows, int columns) throws Throwable {
+    Object world = NEW_WORLD.invoke(rows, columns, 1, new Random(0));
+    MAKE_GRID.invoke(world);
+    PLACE_MINES.invoke(world, new int[] { rows * columns - 1 });
+    FIND_NEIGHBORS.invoke(world);
+    COUNT_ALL_MINES.invoke(world);
+    return world;
+  }
+
+  // returns the cell at the given row and column of the given world
+  static Object cell(Object world, int row, int column) throws Throwable {
+    List<?> line = (List<?>) ((List<?>) GET_GRID.invoke(world)).get(row);
+    return line.get(column);
+  }
+
+  // returns the number of mines for the given board size and density, at least one
+  static int mines(int rows, int columns, double density) {
+    return Math.max(1, (int) (rows * columns * density));
+  }
+}
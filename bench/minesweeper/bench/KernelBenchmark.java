@@ -0,0 +1,80 @@
+package minesweeper.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Compares the scalar and vector board kernels counting adjacent mines and finding the
+// frontier of a sentinel-padded board with a fifth of its cells mined and one flood
+// revealed. The fork adds the jdk.incubator.vector module; without it the vector
+// benchmarks run the scalar kernel, which Kernels falls back to
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class KernelBenchmark {
+
+  // the cells of a played board, and the kernels to run on them
+  @State(Scope.Thread)
+  public static class Cells {
+    @Param({ "30", "300", "2000" })
+    public int size;
+    byte[] cells;
+    byte[] out;
+    Object scalar;
+    Object vector;
+
+    // plays the first reveal of a game and takes its cells
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+      Object board = Hooks.NEW_PADDED_BOARD.invoke(this.size, this.size);
+      Object game = Hooks.NEW_GAME_ON.invoke(board, this.size * this.size / 5, 1L, true);
+      Hooks.GAME_REVEAL.invoke(game, this.size / 2, this.size / 2);
+      this.cells = (byte[]) Hooks.PADDED_CELLS.invoke(board);
+      this.out = new byte[this.cells.length];
+      this.scalar = Hooks.SCALAR_KERNEL.invoke();
+      Object vector = Hooks.VECTOR_KERNEL.invoke();
+      this.vector = vector != null ? vector : this.scalar;
+    }
+  }
+
+  // measures the scalar kernel counting adjacent mines
+  @Benchmark
+  public byte[] scalarCount(Cells state) throws Throwable {
+    Hooks.KERNEL_COUNT_ALL.invoke(state.scalar, state.cells, state.size, state.size);
+    return state.cells;
+  }
+
+  // measures the vector kernel counting adjacent mines
+  @Benchmark
+  public byte[] vectorCount(Cells state) throws Throwable {
+    Hooks.KERNEL_COUNT_ALL.invoke(state.vector, state.cells, state.size, state.size);
+    return state.cells;
+  }
+
+  // measures the scalar kernel finding the frontier
+  @Benchmark
+  public Object scalarFrontier(Cells state) throws Throwable {
+    return Hooks.KERNEL_FRONTIER.invoke(state.scalar, state.cells, state.size, state.size,
+        state.out);
+  }
+
+  // measures the vector kernel finding the frontier
+  @Benchmark
+  public Object vectorFrontier(Cells state) throws Throwable {
+    return Hooks.KERNEL_FRONTIER.invoke(state.vector, state.cells, state.size, state.size,
+        state.out);
+  }
+}
@@ -0,0 +1,63 @@
+package minesweeper.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures composing scenes: a frame drawn from scratch, a frame with nothing to
+// redraw, and the last scene of a lost game
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SceneBenchmark {
+
+  // a world of the given size and density whose first frame has been drawn
+  @State(Scope.Thread)
+  public static class Drawn {
+    @Param({ "10", "30", "100" })
+    public int size;
+    @Param({ "0.12", "0.20" })
+    public double density;
+    Object world;
+
+    // creates the world and draws it
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+      this.world = Hooks.world(this.size, this.size,
+          Hooks.mines(this.size, this.size, this.density), 1);
+      Hooks.MAKE_SCENE.invoke(this.world);
+    }
+  }
+
+  // measures composing the board from scratch
+  @Benchmark
+  public Object fullScene(Drawn state) throws Throwable {
+    Hooks.SET_SCENE.invoke(state.world, null);
+    return Hooks.MAKE_SCENE.invoke(state.world);
+  }
+
+  // measures a frame in which no cell changed
+  @Benchmark
+  public Object unchangedScene(Drawn state) throws Throwable {
+    return Hooks.MAKE_SCENE.invoke(state.world);
+  }
+
+  // measures the last scene of a lost game
+  @Benchmark
+  public Object lastScene(Drawn state) throws Throwable {
+    return Hooks.LAST_SCENE.invoke(state.world, "you lost!");
+  }
+}
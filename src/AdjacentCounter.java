@@ -0,0 +1,104 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Computes the number of adjacent mines of every cell in one pass over a mine bitmap.
+// Each row is reduced to the sums of its mines over three-cell windows, and the count of
+// a cell is the sum of the windows above, on and below it minus its own mine. Boards
+// larger than one band of rows are split into bands that run on the fork-join pool;
+// bands only read the bitmap and write their own rows of the counts
+class AdjacentCounter extends RecursiveAction {
+  static final long serialVersionUID = 1L;
+
+  // number of cells in a band that is counted without splitting it further
+  static final int BAND_CELLS = 1 << 16;
+
+  long[] mineBits;
+  int rows;
+  int columns;
+  byte[] counts;
+  int from;
+  int to;
+
+  AdjacentCounter(long[] mineBits, int rows, int columns, byte[] counts, int from, int to) {
+    this.mineBits = mineBits;
+    this.rows = rows;
+    this.columns = columns;
+    this.counts = counts;
+    this.from = from;
+    this.to = to;
+  }
+
+  // writes the number of adjacent mines of every cell of a board with the given
+  // dimensions and mine bitmap into counts
+  static void countAll(long[] mineBits, int rows, int columns, byte[] counts) {
+    AdjacentCounter task = new AdjacentCounter(mineBits, rows, columns, counts, 0, rows);
+    if ((long) rows * columns <= BAND_CELLS) {
+      task.compute();
+    }
+    else {
+      ForkJoinPool.commonPool().invoke(task);
+    }
+  }
+
+  // counts this band of rows, splitting it in two while it is larger than one band
+  @Override
+  protected void compute() {
+    if ((long) (this.to - this.from) * this.columns <= BAND_CELLS || this.to - this.from < 2) {
+      this.countBand();
+    }
+    else {
+      int mid = (this.from + this.to) >>> 1;
+      RecursiveAction.invokeAll(
+          new AdjacentCounter(this.mineBits, this.rows, this.columns, this.counts, this.from,
+              mid),
+          new AdjacentCounter(this.mineBits, this.rows, this.columns, this.counts, mid,
+              this.to));
+    }
+  }
+
+  // returns 1 if the cell at index i has a mine and 0 if it doesn't
+  int mineAt(int i) {
+    return (int) (this.mineBits[i >>> 6] >>> i) & 1;
+  }
+
+  // writes the number of mines in the three-cell window around each column of the
+  // given row into sums, or zeroes when the row is off the board
+  void windowSums(int row, byte[] sums) {
+    if (row < 0 || row >= this.rows) {
+      Arrays.fill(sums, (byte) 0);
+      return;
+    }
+    int base = row * this.columns;
+    int left = 0;
+    int here = this.mineAt(base);
+    for (int c = 0; c < this.columns; c++) {
+      int right = c + 1 < this.columns ? this.mineAt(base + c + 1) : 0;
+      sums[c] = (byte) (left + here + right);
+      left = here;
+      here = right;
+    }
+  }
+
+  // counts the rows of this band, keeping the window sums of the row above, the row
+  // itself and the row below in three rolling buffers
+  void countBand() {
+    byte[] above = new byte[this.columns];
+    byte[] middle = new byte[this.columns];
+    byte[] below = new byte[this.columns];
+    this.windowSums(this.from - 1, above);
+    this.windowSums(this.from, middle);
+
+    for (int r = this.from; r < this.to; r++) {
+      this.windowSums(r + 1, below);
+      int base = r * this.columns;
+      for (int c = 0; c < this.columns; c++) {
+        this.counts[base + c] = (byte) (above[c] + middle[c] + below[c] - this.mineAt(base + c));
+      }
+      byte[] spare = above;
+      above = middle;
+      middle = below;
+      below = spare;
+    }
+  }
+}
@@ -0,0 +1,550 @@
+import java.util.Arrays;
+import java.util.Random;
+
+import tester.Tester;
+
+// the cells of a Minesweeper board, addressed by a single int index
+// (row * columns + column), as the rules of the game in Game see them
+interface IBoard {
+
+  // returns the number of rows on the board
+  int rowCount();
+
+  // returns the number of columns on the board
+  int columnCount();
+
+  // returns the number of cells on the board
+  int cellCount();
+
+  // returns the index of the cell at the given row and column
+  int index(int row, int column);
+
+  // returns the number of mines on the board
+  int mineCount();
+
+  // checks if the cell at index i contains a mine
+  boolean containsMine(int i);
+
+  // checks if the cell at index i is revealed
+  boolean isRevealed(int i);
+
+  // checks if the cell at index i is flagged
+  boolean isFlagged(int i);
+
+  // returns the number of mines adjacent to the cell at index i
+  int numMines(int i);
+
+  // writes the indices of the neighbours of the cell at index i into out and returns
+  // how many there are; out must hold at least 8 ints
+  int neighbors(int i, int[] out);
+
+  // adds a mine to the cell at index i if it doesn't already contain a mine
+  boolean addAMine(int i);
+
+  // counts the number of mines adjacent to every cell on the board
+  void countAllMines();
+
+  // reveals the cell at index i, flood-filling through cells with no adjacent mines.
+  // Adds the newly revealed cells to delta when it isn't null and returns how many
+  // there were
+  int reveal(int i, IntList delta);
+
+  // flags or unflags the cell at index i based on the current flagged state
+  void flagCell(int i);
+
+  // covers or uncovers the cell at index i alone, without flood-filling, so a move can
+  // be taken back and made again
+  void setRevealed(int i, boolean revealed);
+
+  // checks if the cell at index i satisfies the losing conditions
+  boolean loseCondition(int i);
+}
+
+// Represents a Minesweeper board packed into flat primitive arrays. Every cell is
+// addressed by a single int index (row * columns + column). Mines, revealed cells and
+// flagged cells are one bit each and the adjacent mine counts are one byte per cell, so
+// a board costs a little under 1.4 bytes per cell instead of a Cell object and its
+// list of neighbours
+class Board implements IBoard {
+  // largest number of cells a board can hold, limited by the size of a byte[]
+  static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+  // row and column offsets of the eight neighbours of a cell, in the same order
+  // Minesweeper.findNeighbors() adds them: top, bottom, left, right, top left,
+  // bottom left, bottom right, top right
+  static final int[] NEIGHBOR_ROWS = { -1, 1, 0, 0, -1, 1, 1, -1 };
+  static final int[] NEIGHBOR_COLUMNS = { 0, 0, -1, 1, -1, -1, 1, 1 };
+
+  int rows;
+  int columns;
+  int size;
+  int mines;
+  long[] mineBits;
+  long[] revealedBits;
+  long[] flaggedBits;
+  byte[] adjacent;
+
+  Board(int rows, int columns) {
+    this.rows = new Utils().checkRange(rows, 0, MAX_CELLS, "Invalid Number of Rows");
+    this.columns = new Utils().checkRange(columns, 0, MAX_CELLS / this.rows,
+        "Invalid Number of Columns");
+    this.size = this.rows * this.columns;
+    this.mines = 0;
+    this.mineBits = new long[Board.words(this.size)];
+    this.revealedBits = new long[Board.words(this.size)];
+    this.flaggedBits = new long[Board.words(this.size)];
+    this.adjacent = new byte[this.size];
+  }
+
+  // number of longs needed to hold the given number of bits
+  static int words(int bits) {
+    return (bits + 63) >>> 6;
+  }
+
+  // returns the bit at index i of the given bit set
+  static boolean getBit(long[] bits, int i) {
+    return (bits[i >>> 6] & (1L << i)) != 0;
+  }
+
+  // sets the bit at index i of the given bit set
+  static void setBit(long[] bits, int i) {
+    bits[i >>> 6] |= 1L << i;
+  }
+
+  // clears the bit at index i of the given bit set
+  static void clearBit(long[] bits, int i) {
+    bits[i >>> 6] &= ~(1L << i);
+  }
+
+  // mask of the bits of the last word that belong to a board of the given size
+  static long lastWordMask(int size) {
+    return (size & 63) == 0 ? -1L : (1L << size) - 1;
+  }
+
+  // returns the number of rows on the board
+  public int rowCount() {
+    return this.rows;
+  }
+
+  // returns the number of columns on the board
+  public int columnCount() {
+    return this.columns;
+  }
+
+  // returns the number of cells on the board
+  public int cellCount() {
+    return this.size;
+  }
+
+  // returns the number of mines on the board
+  public int mineCount() {
+    return this.mines;
+  }
+
+  // returns the index of the cell at the given row and column
+  public int index(int row, int column) {
+    return row * this.columns + column;
+  }
+
+  // returns the row of the cell at index i
+  int rowOf(int i) {
+    return i / this.columns;
+  }
+
+  // returns the column of the cell at index i
+  int columnOf(int i) {
+    return i % this.columns;
+  }
+
+  // checks if the given row and column are on the board
+  boolean inBounds(int row, int column) {
+    return row >= 0 && row < this.rows && column >= 0 && column < this.columns;
+  }
+
+  // checks if the cell at index i contains a mine
+  public boolean containsMine(int i) {
+    return Board.getBit(this.mineBits, i);
+  }
+
+  // checks if the cell at index i is revealed
+  public boolean isRevealed(int i) {
+    return Board.getBit(this.revealedBits, i);
+  }
+
+  // checks if the cell at index i is flagged
+  public boolean isFlagged(int i) {
+    return Board.getBit(this.flaggedBits, i);
+  }
+
+  // returns the number of mines adjacent to the cell at index i
+  public int numMines(int i) {
+    return this.adjacent[i];
+  }
+
+  // writes the indices of the neighbours of the cell at index i into out and returns
+  // how many there are; out must hold at least 8 ints
+  public int neighbors(int i, int[] out) {
+    int row = this.rowOf(i);
+    int column = this.columnOf(i);
+    int count = 0;
+    for (int k = 0; k < 8; k++) {
+      int r = row + NEIGHBOR_ROWS[k];
+      int c = column + NEIGHBOR_COLUMNS[k];
+      if (this.inBounds(r, c)) {
+        out[count] = this.index(r, c);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // adds a mine to the cell at index i if it doesn't already contain a mine
+  public boolean addAMine(int i) {
+    if (this.containsMine(i)) {
+      return false;
+    }
+    else {
+      Board.setBit(this.mineBits, i);
+      this.mines++;
+      return true;
+    }
+  }
+
+  // places the given number of mines uniformly at random and counts the adjacent mines
+  void placeMines(int count, Random rand) {
+    for (int i : new MineGenerator(rand).choose(this.size, count)) {
+      this.addAMine(i);
+    }
+    this.countAllMines();
+  }
+
+  // places the given number of mines uniformly at random outside the safe zone of a
+  // first click on the cell at index first, and counts the adjacent mines
+  void placeMines(int count, Random rand, int first) {
+    int[] safe = MineGenerator.safeZone(this.rows, this.columns, count, this.rowOf(first),
+        this.columnOf(first));
+    for (int i : new MineGenerator(rand).choose(this.size, count, safe)) {
+      this.addAMine(i);
+    }
+    this.countAllMines();
+  }
+
+  // updates the adjacent count of the cell at index i from its neighbours
+  void countMines(int i) {
+    int[] around = new int[8];
+    int n = this.neighbors(i, around);
+    int count = 0;
+    for (int k = 0; k < n; k++) {
+      if (this.containsMine(around[k])) {
+        count++;
+      }
+    }
+    this.adjacent[i] = (byte) count;
+  }
+
+  // counts the number of mines adjacent to every cell on the board in one pass over the
+  // mine bitmap, in parallel bands of rows on large boards
+  public void countAllMines() {
+    AdjacentCounter.countAll(this.mineBits, this.rows, this.columns, this.adjacent);
+  }
+
+  // checks if the cell at index i is neither revealed nor flagged
+  boolean isHidden(int i) {
+    return ((this.revealedBits[i >>> 6] | this.flaggedBits[i >>> 6]) & (1L << i)) == 0;
+  }
+
+  // marks the cell at index i as revealed and records it in delta, if there is one
+  void show(int i, IntList delta) {
+    Board.setBit(this.revealedBits, i);
+    if (delta != null) {
+      delta.add(i);
+    }
+  }
+
+  // reveals the cell at index i and returns how many cells were newly revealed
+  int reveal(int i) {
+    return this.reveal(i, null);
+  }
+
+  // reveals the cell at index i if it isn't flagged or revealed, and flood-fills
+  // outwards from it through cells with no adjacent mines. The fill works on
+  // horizontal spans of empty cells kept on an explicit stack, so its depth is not
+  // bounded by the thread stack and every cell is revealed exactly once. Adds the
+  // newly revealed cells to delta when it isn't null and returns how many there were
+  public int reveal(int i, IntList delta) {
+    if (!this.isHidden(i)) {
+      return 0;
+    }
+    this.show(i, delta);
+    if (this.containsMine(i) || this.adjacent[i] != 0) {
+      return 1;
+    }
+
+    int count = 1;
+    IntList spans = new IntList();
+    spans.add(this.rowOf(i));
+    spans.add(this.columnOf(i));
+    spans.add(this.columnOf(i));
+
+    while (!spans.isEmpty()) {
+      int right = spans.pop();
+      int left = spans.pop();
+      int row = spans.pop();
+      int base = row * this.columns;
+
+      // widen the span over the empty cells on either side of it
+      while (left > 0 && this.isHidden(base + left - 1) && this.adjacent[base + left - 1] == 0) {
+        left--;
+        this.show(base + left, delta);
+        count++;
+      }
+      while (right < this.columns - 1 && this.isHidden(base + right + 1)
+          && this.adjacent[base + right + 1] == 0) {
+        right++;
+        this.show(base + right, delta);
+        count++;
+      }
+
+      // the cells that stopped the span are numbered borders of the region
+      int from = Math.max(left - 1, 0);
+      int to = Math.min(right + 1, this.columns - 1);
+      if (from < left && this.isHidden(base + from)) {
+        this.show(base + from, delta);
+        count++;
+      }
+      if (to > right && this.isHidden(base + to)) {
+        this.show(base + to, delta);
+        count++;
+      }
+
+      if (row > 0) {
+        count += this.scanRow(row - 1, from, to, spans, delta);
+      }
+      if (row < this.rows - 1) {
+        count += this.scanRow(row + 1, from, to, spans, delta);
+      }
+    }
+    return count;
+  }
+
+  // reveals the hidden cells of the given row between the columns from and to, and
+  // pushes every run of empty cells among them onto spans as (row, left, right).
+  // Returns how many cells were newly revealed
+  int scanRow(int row, int from, int to, IntList spans, IntList delta) {
+    int base = row * this.columns;
+    int count = 0;
+    int runStart = -1;
+    for (int c = from; c <= to; c++) {
+      int cell = base + c;
+      boolean empty = false;
+      if (this.isHidden(cell)) {
+        this.show(cell, delta);
+        count++;
+        empty = this.adjacent[cell] == 0;
+      }
+      if (empty && runStart < 0) {
+        runStart = c;
+      }
+      else if (!empty && runStart >= 0) {
+        spans.add(row);
+        spans.add(runStart);
+        spans.add(c - 1);
+        runStart = -1;
+      }
+    }
+    if (runStart >= 0) {
+      spans.add(row);
+      spans.add(runStart);
+      spans.add(to);
+    }
+    return count;
+  }
+
+  // flags or unflags the cell at index i based on the current flagged state
+  public void flagCell(int i) {
+    this.flaggedBits[i >>> 6] ^= 1L << i;
+  }
+
+  // covers or uncovers the cell at index i alone, without flood-filling
+  public void setRevealed(int i, boolean revealed) {
+    if (revealed) {
+      Board.setBit(this.revealedBits, i);
+    }
+    else {
+      Board.clearBit(this.revealedBits, i);
+    }
+  }
+
+  // checks if the cell at index i satisfies the losing conditions
+  public boolean loseCondition(int i) {
+    return this.containsMine(i) && this.isRevealed(i);
+  }
+
+  // checks if the cell at index i satisfies the winning conditions
+  boolean winCondition(int i) {
+    return this.containsMine(i) != this.isRevealed(i);
+  }
+
+  // checks if any cell on the board satisfies the losing conditions, 64 cells at a time
+  boolean lost() {
+    for (int w = 0; w < this.mineBits.length; w++) {
+      if ((this.mineBits[w] & this.revealedBits[w]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // checks if every cell on the board satisfies the winning conditions, 64 cells at a
+  // time
+  boolean won() {
+    int last = this.mineBits.length - 1;
+    for (int w = 0; w < last; w++) {
+      if ((this.mineBits[w] ^ this.revealedBits[w]) != -1L) {
+        return false;
+      }
+    }
+    long mask = Board.lastWordMask(this.size);
+    return ((this.mineBits[last] ^ this.revealedBits[last]) & mask) == mask;
+  }
+
+  // reveals every cell that contains a mine
+  void revealMines() {
+    for (int w = 0; w < this.mineBits.length; w++) {
+      this.revealedBits[w] |= this.mineBits[w];
+    }
+  }
+}
+
+// examples and tests for the packed board
+class ExamplesBoard {
+
+  // builds the 3x3 board used by ExamplesMinesweeper, with mines in the top left corner
+  Board corner() {
+    Board b = new Board(3, 3);
+    b.addAMine(b.index(0, 0));
+    b.addAMine(b.index(0, 1));
+    b.addAMine(b.index(1, 0));
+    b.countAllMines();
+    return b;
+  }
+
+  // tests the constructor exceptions for the board
+  boolean testBoardExceptions(Tester t) {
+    return t.checkConstructorException(new IllegalArgumentException("Invalid Number of Rows"),
+        "Board", 0, 10)
+        && t.checkConstructorException(new IllegalArgumentException("Invalid Number of Columns"),
+            "Board", 100000, 100000);
+  }
+
+  // tests indexing, neighbours and mine counting
+  void testBoardSetup(Tester t) {
+    Board b = this.corner();
+    int[] around = new int[8];
+
+    t.checkExpect(b.index(2, 1), 7);
+    t.checkExpect(b.rowOf(7), 2);
+    t.checkExpect(b.columnOf(7), 1);
+    t.checkExpect(b.neighbors(0, around), 3);
+    t.checkExpect(Arrays.copyOf(around, 3), new int[] { 3, 1, 4 });
+    t.checkExpect(b.neighbors(4, around), 8);
+    t.checkExpect(b.addAMine(0), false);
+    t.checkExpect(b.mines, 3);
+    t.checkExpect(b.numMines(0), 2);
+    t.checkExpect(b.numMines(4), 3);
+    t.checkExpect(b.numMines(8), 0);
+  }
+
+  // tests seeded mine placement with and without a safe first click
+  void testBoardPlaceMines(Tester t) {
+    Board b = new Board(30, 16);
+    b.placeMines(99, new Random(11));
+    Board same = new Board(30, 16);
+    same.placeMines(99, new Random(11));
+    Board safe = new Board(30, 16);
+    safe.placeMines(99, new Random(11), safe.index(0, 0));
+
+    t.checkExpect(b.mines, 99);
+    t.checkExpect(b.mineBits, same.mineBits);
+    t.checkExpect(b.adjacent, same.adjacent);
+    t.checkExpect(safe.mines, 99);
+    t.checkExpect(safe.numMines(0), 0);
+    t.checkExpect(safe.containsMine(safe.index(1, 1)), false);
+  }
+
+  // tests that the bulk count agrees with counting each cell on its own, on a board
+  // large enough to be split into several bands
+  void testBoardCountAllMines(Tester t) {
+    Board b = new Board(1000, 333);
+    b.placeMines(60000, new Random(4));
+    boolean agree = true;
+    for (int i = 0; i < b.size && agree; i++) {
+      int bulk = b.numMines(i);
+      b.countMines(i);
+      agree = bulk == b.numMines(i);
+    }
+    t.checkExpect(agree, true);
+  }
+
+  // tests reveal, flagging and the win and lose conditions
+  void testBoardPlay(Tester t) {
+    Board b = this.corner();
+
+    b.flagCell(5);
+    t.checkExpect(b.isFlagged(5), true);
+    IntList delta = new IntList();
+    t.checkExpect(b.reveal(8, delta), 3);
+    t.checkExpect(delta.toArray(), new int[] { 8, 7, 4 });
+    t.checkExpect(b.isRevealed(8), true);
+    t.checkExpect(b.isRevealed(7), true);
+    t.checkExpect(b.isRevealed(4), true);
+    t.checkExpect(b.isRevealed(5), false);
+    t.checkExpect(b.won(), false);
+
+    b.flagCell(5);
+    t.checkExpect(b.isFlagged(5), false);
+    b.reveal(5);
+    b.reveal(2);
+    b.reveal(6);
+    t.checkExpect(b.winCondition(2), true);
+    t.checkExpect(b.won(), true);
+    t.checkExpect(b.lost(), false);
+
+    b.reveal(0);
+    t.checkExpect(b.loseCondition(0), true);
+    t.checkExpect(b.lost(), true);
+    b.revealMines();
+    t.checkExpect(b.isRevealed(1), true);
+  }
+
+  // tests that the scanline fill stops at a ring of mines around a pocket of cells
+  void testBoardFillShape(Tester t) {
+    Board b = new Board(7, 9);
+    int[] ring = { 10, 11, 12, 13, 19, 22, 28, 29, 30, 31 };
+    for (int i : ring) {
+      b.addAMine(i);
+    }
+    b.countAllMines();
+
+    t.checkExpect(b.reveal(20), 1);
+    t.checkExpect(b.isRevealed(21), false);
+    t.checkExpect(b.reveal(8), 43);
+    t.checkExpect(b.isRevealed(21), false);
+    t.checkExpect(b.isRevealed(62), true);
+    t.checkExpect(b.isRevealed(18), false);
+    t.checkExpect(b.won(), false);
+  }
+
+  // tests that a flood fill over a large open board does not overflow the stack
+  void testBoardLargeReveal(Tester t) {
+    Board b = new Board(2000, 2000);
+    b.addAMine(b.index(1999, 1999));
+    b.countAllMines();
+    t.checkExpect(b.reveal(0), 2000 * 2000 - 1);
+    t.checkExpect(b.reveal(5), 0);
+
+    t.checkExpect(b.isRevealed(b.index(1998, 1998)), true);
+    t.checkExpect(b.isRevealed(b.index(1999, 1999)), false);
+    t.checkExpect(b.won(), true);
+  }
+}
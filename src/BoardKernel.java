@@ -0,0 +1,161 @@
+import java.util.Random;
+
+import tester.Tester;
+
+// Bulk passes over the cells of a PaddedBoard: one byte per cell in rows of columns + 2,
+// with a border of cells around the board, laid out as in PaddedBoard. Implementations
+// must give the same results; VectorBoardKernel, compiled separately from the vector
+// source root, computes several cells a lane at a time with the incubating Vector API
+// and ScalarKernel one cell at a time
+interface BoardKernel {
+
+  // writes the number of adjacent mines of every cell into the low bits of its byte
+  void countAll(byte[] cells, int rows, int columns);
+
+  // sets out[p] to 1 for every covered cell of the board next to a revealed cell, and
+  // to 0 for every other cell of the board, and returns how many were set to 1. These
+  // are the cells a solver has to reason about; out has the layout of cells
+  int frontier(byte[] cells, int rows, int columns, byte[] out);
+}
+
+// the kernel that works on one cell at a time, used when the Vector API isn't available
+class ScalarKernel implements BoardKernel {
+
+  // returns the positions of the eight neighbours of a cell relative to its own
+  static int[] offsets(int columns) {
+    int stride = columns + 2;
+    int[] offsets = new int[8];
+    for (int k = 0; k < 8; k++) {
+      offsets[k] = Board.NEIGHBOR_ROWS[k] * stride + Board.NEIGHBOR_COLUMNS[k];
+    }
+    return offsets;
+  }
+
+  // writes the number of adjacent mines of each cell at the positions from (inclusive) to
+  // to (exclusive)
+  static void countRow(byte[] cells, int[] offsets, int from, int to) {
+    for (int p = from; p < to; p++) {
+      int count = 0;
+      for (int k = 0; k < 8; k++) {
+        count += (cells[p + offsets[k]] >>> 4) & 1;
+      }
+      cells[p] = (byte) ((cells[p] & ~PaddedBoard.COUNT) | count);
+    }
+  }
+
+  // marks the frontier cells at the positions from (inclusive) to to (exclusive),
+  // returning how many there were
+  static int frontierRow(byte[] cells, int[] offsets, int from, int to, byte[] out) {
+    int count = 0;
+    for (int p = from; p < to; p++) {
+      int near = 0;
+      for (int k = 0; k < 8; k++) {
+        int n = cells[p + offsets[k]];
+        near |= (n >>> 5) & ~(n >>> 7);
+      }
+      int edge = near & ~(cells[p] >>> 5) & 1;
+      out[p] = (byte) edge;
+      count += edge;
+    }
+    return count;
+  }
+
+  // writes the number of adjacent mines of every cell into the low bits of its byte
+  public void countAll(byte[] cells, int rows, int columns) {
+    int[] offsets = ScalarKernel.offsets(columns);
+    int stride = columns + 2;
+    for (int r = 1; r <= rows; r++) {
+      ScalarKernel.countRow(cells, offsets, r * stride + 1, r * stride + 1 + columns);
+    }
+  }
+
+  // marks the covered cells next to revealed cells and returns how many there are
+  public int frontier(byte[] cells, int rows, int columns, byte[] out) {
+    int[] offsets = ScalarKernel.offsets(columns);
+    int stride = columns + 2;
+    int count = 0;
+    for (int r = 1; r <= rows; r++) {
+      count += ScalarKernel.frontierRow(cells, offsets, r * stride + 1,
+          r * stride + 1 + columns, out);
+    }
+    return count;
+  }
+}
+
+// the kernels available to this JVM
+class Kernels {
+  static final BoardKernel SCALAR = new ScalarKernel();
+  // the vector kernel, or null when the jdk.incubator.vector module isn't loaded
+  static final BoardKernel VECTOR = Kernels.loadVector();
+
+  // returns the vector kernel if it was compiled and its module is present, or null
+  static BoardKernel loadVector() {
+    try {
+      return (BoardKernel) Class.forName("VectorBoardKernel").getDeclaredConstructor()
+          .newInstance();
+    }
+    catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  // returns the fastest kernel available
+  static BoardKernel best() {
+    return VECTOR != null ? VECTOR : SCALAR;
+  }
+}
+
+// examples and tests for the board kernels
+class ExamplesBoardKernel {
+
+  // tests the scalar frontier against a direct check of each cell
+  void testScalarFrontier(Tester t) {
+    Game g = new Game(new PaddedBoard(5, 7));
+    g.placeMines(new int[] { 0, 12, 34 });
+    g.reveal(4, 0);
+    PaddedBoard b = (PaddedBoard) g.board;
+    byte[] out = new byte[b.cells.length];
+    int count = Kernels.SCALAR.frontier(b.cells, 5, 7, out);
+    int[] around = new int[8];
+    int expected = 0;
+    boolean same = true;
+    for (int i = 0; i < 35; i++) {
+      boolean edge = false;
+      int n = b.neighbors(i, around);
+      for (int k = 0; k < n; k++) {
+        edge = edge || b.isRevealed(around[k]);
+      }
+      edge = edge && !b.isRevealed(i);
+      expected += edge ? 1 : 0;
+      same = same && (out[b.position(i)] == 1) == edge;
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(count, expected);
+    t.checkExpect(count > 0, true);
+  }
+
+  // tests that the best kernel available agrees with the scalar kernel
+  void testKernelsAgree(Tester t) {
+    Random rand = new Random(2);
+    boolean same = true;
+    for (int round = 0; round < 20; round++) {
+      int rows = 1 + rand.nextInt(90);
+      int columns = 1 + rand.nextInt(150);
+      Game g = new Game(new PaddedBoard(rows, columns), rows * columns / 6, rand.nextLong(),
+          true);
+      g.reveal(rand.nextInt(rows), rand.nextInt(columns));
+      PaddedBoard b = (PaddedBoard) g.board;
+      byte[] expected = b.cells.clone();
+      byte[] actual = b.cells.clone();
+      Kernels.SCALAR.countAll(expected, rows, columns);
+      Kernels.best().countAll(actual, rows, columns);
+      byte[] scalarOut = new byte[expected.length];
+      byte[] bestOut = new byte[expected.length];
+      same = same && java.util.Arrays.equals(expected, actual)
+          && Kernels.SCALAR.frontier(b.cells, rows, columns, scalarOut)
+              == Kernels.best().frontier(b.cells, rows, columns, bestOut)
+          && java.util.Arrays.equals(scalarOut, bestOut);
+    }
+    t.checkExpect(same, true);
+  }
+}
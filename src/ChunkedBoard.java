@@ -0,0 +1,698 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javalib.worldimages.Posn;
+import tester.Tester;
+
+// Represents an endless Minesweeper board, addressed by any int row and column. The
+// board is split into square chunks that are only created when a move reaches them.
+// Whether a cell holds a mine is a stateless hash of the seed, the coordinates of its
+// chunk and its place in the chunk, so the mines of any chunk, and of the cells around
+// it that decide the counts on its border, can be worked out again at any time. Chunks
+// are kept in a least-recently-used cache; an evicted chunk only leaves behind its
+// revealed and flagged bits, run-length encoded so a chunk that was opened up costs a
+// few bytes, and is rebuilt from the hash when it is needed again, so memory grows with
+// the area explored and not with the area ever generated.
+// As an IBoard it is the window of WINDOW x WINDOW cells centred on (0, 0), as large as
+// int cell indices allow, so a Game and a ViewportWorld can play it; game() starts an
+// endless game on it, and main plays one in a window
+class ChunkedBoard implements IBoard {
+  // a chunk is SIZE x SIZE cells
+  static final int SHIFT = 6;
+  static final int SIZE = 1 << SHIFT;
+  static final int CELLS = SIZE * SIZE;
+  // smallest mine density allowed; below it the cells with no adjacent mines connect
+  // into regions without bound, and a single reveal would never finish
+  static final double MIN_DENSITY = 0.12;
+  // the rows and columns of the window played as an IBoard, and the row and column of
+  // the window at (0, 0)
+  static final int WINDOW = 46340;
+  static final int ORIGIN = WINDOW / 2;
+
+  long seed;
+  // a cell holds a mine when the top 53 bits of its hash are below this
+  long threshold;
+  ChunkCache chunks;
+  // run-length encoded revealed and flagged bits of the evicted chunks that had any,
+  // and the number of bytes they take
+  HashMap<Long, char[]> evicted;
+  long evictedBytes;
+  // number of chunks built, counting a chunk again each time it is rebuilt
+  int built;
+  // the chunk used last, which most moves stay in
+  Chunk last;
+
+  ChunkedBoard(long seed, double density, int capacity) {
+    if (!(density >= MIN_DENSITY && density < 1)) {
+      throw new IllegalArgumentException("Invalid Mine Density");
+    }
+    this.seed = seed;
+    this.threshold = (long) (density * (1L << 53));
+    this.chunks = new ChunkCache(this, new Utils().checkRange(capacity, 7, Integer.MAX_VALUE,
+        "Invalid Number of Chunks"));
+    this.evicted = new HashMap<Long, char[]>();
+    this.evictedBytes = 0;
+    this.built = 0;
+    this.last = null;
+  }
+
+  // returns the key of the chunk with the given chunk coordinates
+  static long key(int chunkRow, int chunkColumn) {
+    return ((long) chunkRow << 32) | (chunkColumn & 0xFFFFFFFFL);
+  }
+
+  // scrambles the bits of x (the SplitMix64 finalizer)
+  static long mix(long x) {
+    x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+    x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+    return x ^ (x >>> 31);
+  }
+
+  // checks if the cell at the given row and column holds a mine. The cells around
+  // (0, 0) never do, so a game can always start there
+  boolean mineAt(int row, int column) {
+    if (Math.abs(row) <= 1 && Math.abs(column) <= 1) {
+      return false;
+    }
+    long chunk = ChunkedBoard.mix(this.seed ^ ChunkedBoard.mix(ChunkedBoard.key(row >> SHIFT,
+        column >> SHIFT)));
+    int local = ((row & (SIZE - 1)) << SHIFT) | (column & (SIZE - 1));
+    return ChunkedBoard.mix(chunk + local * 0x9E3779B97F4A7C15L) >>> 11 < this.threshold;
+  }
+
+  // returns the chunk holding the cell at the given row and column, building it if
+  // it isn't in the cache
+  Chunk chunk(int row, int column) {
+    int chunkRow = row >> SHIFT;
+    int chunkColumn = column >> SHIFT;
+    if (this.last != null && this.last.chunkRow == chunkRow
+        && this.last.chunkColumn == chunkColumn) {
+      return this.last;
+    }
+    long key = ChunkedBoard.key(chunkRow, chunkColumn);
+    Chunk c = this.chunks.get(key);
+    if (c == null) {
+      char[] state = this.evicted.remove(key);
+      if (state != null) {
+        this.evictedBytes -= 2L * state.length;
+      }
+      c = new Chunk(this, chunkRow, chunkColumn, state);
+      this.built++;
+      this.chunks.put(key, c);
+    }
+    this.last = c;
+    return c;
+  }
+
+  // returns the index within its chunk of the cell at the given row and column
+  static int local(int row, int column) {
+    return ((row & (SIZE - 1)) << SHIFT) | (column & (SIZE - 1));
+  }
+
+  // checks if the cell at the given row and column holds a mine
+  boolean containsMine(int row, int column) {
+    return Board.getBit(this.chunk(row, column).mineBits, ChunkedBoard.local(row, column));
+  }
+
+  // checks if the cell at the given row and column is revealed
+  boolean isRevealed(int row, int column) {
+    return Board.getBit(this.chunk(row, column).revealedBits, ChunkedBoard.local(row, column));
+  }
+
+  // checks if the cell at the given row and column is flagged
+  boolean isFlagged(int row, int column) {
+    return Board.getBit(this.chunk(row, column).flaggedBits, ChunkedBoard.local(row, column));
+  }
+
+  // returns the number of mines adjacent to the cell at the given row and column
+  int numMines(int row, int column) {
+    return this.chunk(row, column).adjacent[ChunkedBoard.local(row, column)];
+  }
+
+  // flags or unflags the cell at the given row and column if it is covered
+  void flag(int row, int column) {
+    Chunk c = this.chunk(row, column);
+    int i = ChunkedBoard.local(row, column);
+    if (!Board.getBit(c.revealedBits, i)) {
+      c.flaggedBits[i >>> 6] ^= 1L << i;
+    }
+  }
+
+  // reveals the cell at the given row and column, flood-filling through cells with no
+  // adjacent mines across as many chunks as it reaches, and returns how many cells were
+  // newly revealed
+  int reveal(int row, int column) {
+    return this.reveal(row, column, null);
+  }
+
+  // reveals as above, adding the window index of every newly revealed cell to delta when
+  // it isn't null. The flood fill stays inside the window
+  int reveal(int row, int column, IntList delta) {
+    Chunk c = this.chunk(row, column);
+    int i = ChunkedBoard.local(row, column);
+    if (Board.getBit(c.revealedBits, i) || Board.getBit(c.flaggedBits, i)) {
+      return 0;
+    }
+    Board.setBit(c.revealedBits, i);
+    if (Board.getBit(c.mineBits, i)) {
+      if (delta != null) {
+        delta.add(ChunkedBoard.windowIndex(row, column));
+      }
+      return 1;
+    }
+
+    // cells are marked revealed when they are pushed, so none is pushed twice
+    IntList stack = new IntList();
+    stack.add(row);
+    stack.add(column);
+    int count = 0;
+    while (!stack.isEmpty()) {
+      int col = stack.pop();
+      int r = stack.pop();
+      count++;
+      if (delta != null) {
+        delta.add(ChunkedBoard.windowIndex(r, col));
+      }
+      if (this.numMines(r, col) == 0) {
+        for (int k = 0; k < 8; k++) {
+          int nr = r + Board.NEIGHBOR_ROWS[k];
+          int nc = col + Board.NEIGHBOR_COLUMNS[k];
+          if (!ChunkedBoard.inWindow(nr, nc)) {
+            continue;
+          }
+          Chunk n = this.chunk(nr, nc);
+          int j = ChunkedBoard.local(nr, nc);
+          if (!Board.getBit(n.revealedBits, j) && !Board.getBit(n.flaggedBits, j)) {
+            Board.setBit(n.revealedBits, j);
+            stack.add(nr);
+            stack.add(nc);
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  // keeps the revealed and flagged bits of a chunk that is being evicted, if it has any
+  void evict(Chunk c) {
+    if (this.last == c) {
+      this.last = null;
+    }
+    char[] state = c.state();
+    if (state != null) {
+      this.evicted.put(ChunkedBoard.key(c.chunkRow, c.chunkColumn), state);
+      this.evictedBytes += 2L * state.length;
+    }
+  }
+
+  // checks if the cell at the given row and column is inside the window
+  static boolean inWindow(int row, int column) {
+    return row >= -ORIGIN && row < WINDOW - ORIGIN && column >= -ORIGIN
+        && column < WINDOW - ORIGIN;
+  }
+
+  // returns the window index of the cell at the given row and column
+  static int windowIndex(int row, int column) {
+    return (row + ORIGIN) * WINDOW + column + ORIGIN;
+  }
+
+  // returns the row of the cell at window index i
+  static int rowOf(int i) {
+    return i / WINDOW - ORIGIN;
+  }
+
+  // returns the column of the cell at window index i
+  static int columnOf(int i) {
+    return i % WINDOW - ORIGIN;
+  }
+
+  // returns the number of rows of the window
+  public int rowCount() {
+    return WINDOW;
+  }
+
+  // returns the number of columns of the window
+  public int columnCount() {
+    return WINDOW;
+  }
+
+  // returns the number of cells of the window
+  public int cellCount() {
+    return WINDOW * WINDOW;
+  }
+
+  // returns the window index of the cell at the given row and column of the window
+  public int index(int row, int column) {
+    return row * WINDOW + column;
+  }
+
+  // the mines of the window are never counted, so this returns more than any count of
+  // mines found can reach, and the rules that need the total never apply
+  public int mineCount() {
+    return Integer.MAX_VALUE;
+  }
+
+  // checks if the cell at window index i contains a mine
+  public boolean containsMine(int i) {
+    return this.containsMine(ChunkedBoard.rowOf(i), ChunkedBoard.columnOf(i));
+  }
+
+  // checks if the cell at window index i is revealed
+  public boolean isRevealed(int i) {
+    return this.isRevealed(ChunkedBoard.rowOf(i), ChunkedBoard.columnOf(i));
+  }
+
+  // checks if the cell at window index i is flagged
+  public boolean isFlagged(int i) {
+    return this.isFlagged(ChunkedBoard.rowOf(i), ChunkedBoard.columnOf(i));
+  }
+
+  // returns the number of mines adjacent to the cell at window index i
+  public int numMines(int i) {
+    return this.numMines(ChunkedBoard.rowOf(i), ChunkedBoard.columnOf(i));
+  }
+
+  // writes the window indices of the neighbours of the cell at window index i into out
+  // and returns how many there are; out must hold at least 8 ints
+  public int neighbors(int i, int[] out) {
+    int row = ChunkedBoard.rowOf(i);
+    int column = ChunkedBoard.columnOf(i);
+    int count = 0;
+    for (int k = 0; k < 8; k++) {
+      int r = row + Board.NEIGHBOR_ROWS[k];
+      int c = column + Board.NEIGHBOR_COLUMNS[k];
+      if (ChunkedBoard.inWindow(r, c)) {
+        out[count] = ChunkedBoard.windowIndex(r, c);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // the mines of an endless board come from its hash, so none can be added
+  public boolean addAMine(int i) {
+    return false;
+  }
+
+  // does nothing: each chunk counts its mines when it is built
+  public void countAllMines() {
+    // nothing to do
+  }
+
+  // reveals the cell at window index i, flood-filling through cells with no adjacent
+  // mines, adds the newly revealed cells to delta when it isn't null and returns how
+  // many there were
+  public int reveal(int i, IntList delta) {
+    return this.reveal(ChunkedBoard.rowOf(i), ChunkedBoard.columnOf(i), delta);
+  }
+
+  // flags or unflags the cell at window index i if it is covered
+  public void flagCell(int i) {
+    this.flag(ChunkedBoard.rowOf(i), ChunkedBoard.columnOf(i));
+  }
+
+  // covers or uncovers the cell at window index i alone, without flood-filling
+  public void setRevealed(int i, boolean revealed) {
+    int row = ChunkedBoard.rowOf(i);
+    int column = ChunkedBoard.columnOf(i);
+    Chunk c = this.chunk(row, column);
+    int j = ChunkedBoard.local(row, column);
+    if (revealed) {
+      Board.setBit(c.revealedBits, j);
+    }
+    else {
+      Board.clearBit(c.revealedBits, j);
+    }
+  }
+
+  // checks if the cell at window index i is a revealed mine
+  public boolean loseCondition(int i) {
+    return this.containsMine(i) && this.isRevealed(i);
+  }
+
+  // returns an endless game on this board: it is lost by revealing a mine and never
+  // won, as it counts more covered safe cells than the window holds
+  Game game() {
+    return new Game(this, Integer.MAX_VALUE);
+  }
+
+  // plays an endless game in an 800x600 window, starting at (0, 0), whose neighbours
+  // never hold a mine
+  public static void main(String[] args) {
+    ChunkedBoard board = new ChunkedBoard(System.nanoTime(), 0.18, 256);
+    ViewportWorld world = new ViewportWorld(board.game(), 800, 600);
+    world.centerOn(ORIGIN, ORIGIN);
+    world.bigBang(800, 600);
+  }
+}
+
+// the chunks of an endless board that are in memory, in least-recently-used order, with
+// the least recently used chunk evicted once there are more than a given number
+class ChunkCache extends LinkedHashMap<Long, Chunk> {
+  static final long serialVersionUID = 1L;
+
+  ChunkedBoard board;
+  int capacity;
+
+  ChunkCache(ChunkedBoard board, int capacity) {
+    super(16, 0.75f, true);
+    this.board = board;
+    this.capacity = capacity;
+  }
+
+  // evicts the least recently used chunk when there are too many
+  @Override
+  protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+    if (this.size() > this.capacity) {
+      this.board.evict(eldest.getValue());
+      return true;
+    }
+    return false;
+  }
+}
+
+// one SIZE x SIZE chunk of an endless board, packed like a Board: a bit per cell for
+// mines, revealed and flagged cells and a byte per cell for the adjacent mine counts
+class Chunk {
+  int chunkRow;
+  int chunkColumn;
+  long[] mineBits;
+  long[] revealedBits;
+  long[] flaggedBits;
+  byte[] adjacent;
+
+  // builds the chunk at the given chunk coordinates of the given board, restoring the
+  // revealed and flagged bits it had when it was evicted, if any
+  Chunk(ChunkedBoard board, int chunkRow, int chunkColumn, char[] state) {
+    int words = Board.words(ChunkedBoard.CELLS);
+    this.chunkRow = chunkRow;
+    this.chunkColumn = chunkColumn;
+    this.mineBits = new long[words];
+    this.revealedBits = new long[words];
+    this.flaggedBits = new long[words];
+    this.adjacent = new byte[ChunkedBoard.CELLS];
+    if (state != null) {
+      this.restore(state);
+    }
+
+    // the mines of the chunk and of the ring of cells around it, counted together so
+    // the counts on the border see the mines of the neighbouring chunks
+    int side = ChunkedBoard.SIZE + 2;
+    int top = chunkRow << ChunkedBoard.SHIFT;
+    int left = chunkColumn << ChunkedBoard.SHIFT;
+    long[] padded = new long[Board.words(side * side)];
+    for (int r = 0; r < side; r++) {
+      for (int c = 0; c < side; c++) {
+        if (board.mineAt(top + r - 1, left + c - 1)) {
+          Board.setBit(padded, r * side + c);
+          if (r > 0 && r <= ChunkedBoard.SIZE && c > 0 && c <= ChunkedBoard.SIZE) {
+            Board.setBit(this.mineBits, (r - 1) * ChunkedBoard.SIZE + c - 1);
+          }
+        }
+      }
+    }
+    byte[] counts = new byte[side * side];
+    AdjacentCounter.countAll(padded, side, side, counts);
+    for (int r = 0; r < ChunkedBoard.SIZE; r++) {
+      System.arraycopy(counts, (r + 1) * side + 1, this.adjacent, r * ChunkedBoard.SIZE,
+          ChunkedBoard.SIZE);
+    }
+  }
+
+  // returns the revealed bits followed by the flagged bits of this chunk, or null if
+  // no cell is revealed or flagged. The bits are kept as the lengths of their runs,
+  // alternately of clear and set bits starting with clear ones, so a chunk that is all
+  // covered or all opened takes a few chars. When the runs would take more room than
+  // the bits themselves, the bits are kept as they are, four chars a word
+  char[] state() {
+    int words = this.revealedBits.length;
+    int raw = 8 * words;
+    char[] runs = new char[raw];
+    int count = 0;
+    boolean any = false;
+    boolean bit = false;
+    int run = 0;
+    for (int k = 0; k < 2 * ChunkedBoard.CELLS; k++) {
+      boolean set = k < ChunkedBoard.CELLS ? Board.getBit(this.revealedBits, k)
+          : Board.getBit(this.flaggedBits, k - ChunkedBoard.CELLS);
+      any = any || set;
+      if (set != bit) {
+        if (count < raw) {
+          runs[count] = (char) run;
+        }
+        count++;
+        bit = set;
+        run = 0;
+      }
+      run++;
+    }
+    if (!any) {
+      return null;
+    }
+    if (count + 1 < raw) {
+      runs[count] = (char) run;
+      return Arrays.copyOf(runs, count + 1);
+    }
+    for (int w = 0; w < 2 * words; w++) {
+      long word = w < words ? this.revealedBits[w] : this.flaggedBits[w - words];
+      for (int q = 0; q < 4; q++) {
+        runs[4 * w + q] = (char) (word >>> (16 * q));
+      }
+    }
+    return runs;
+  }
+
+  // sets the revealed and flagged bits of this chunk from the state kept by state
+  void restore(char[] state) {
+    int words = this.revealedBits.length;
+    if (state.length == 8 * words) {
+      for (int w = 0; w < 2 * words; w++) {
+        long word = 0;
+        for (int q = 0; q < 4; q++) {
+          word |= (long) state[4 * w + q] << (16 * q);
+        }
+        if (w < words) {
+          this.revealedBits[w] = word;
+        }
+        else {
+          this.flaggedBits[w - words] = word;
+        }
+      }
+      return;
+    }
+    int k = 0;
+    for (int n = 0; n < state.length; n++) {
+      int end = k + state[n];
+      for (; n % 2 == 1 && k < end; k++) {
+        if (k < ChunkedBoard.CELLS) {
+          Board.setBit(this.revealedBits, k);
+        }
+        else {
+          Board.setBit(this.flaggedBits, k - ChunkedBoard.CELLS);
+        }
+      }
+      k = end;
+    }
+  }
+}
+
+// examples and tests for the endless board
+class ExamplesChunkedBoard {
+
+  // tests that mines are the same whatever order chunks are built in, and that the
+  // counts on chunk borders see the mines of neighbouring chunks
+  void testChunkedMines(Tester t) {
+    ChunkedBoard a = new ChunkedBoard(9L, 0.2, 64);
+    ChunkedBoard b = new ChunkedBoard(9L, 0.2, 64);
+    boolean same = true;
+    boolean counted = true;
+    for (int r = -200; r <= 200; r += 7) {
+      for (int c = 130; c >= -130; c -= 3) {
+        b.containsMine(r, c);
+      }
+    }
+    for (int r = 200; r >= -200; r -= 7) {
+      for (int c = -130; c <= 130; c += 3) {
+        same = same && a.containsMine(r, c) == b.containsMine(r, c)
+            && a.containsMine(r, c) == a.mineAt(r, c);
+      }
+    }
+    for (int r = -65; r <= 65; r++) {
+      for (int c = -65; c <= 65; c++) {
+        int around = 0;
+        for (int k = 0; k < 8; k++) {
+          around += a.mineAt(r + Board.NEIGHBOR_ROWS[k], c + Board.NEIGHBOR_COLUMNS[k]) ? 1 : 0;
+        }
+        counted = counted && b.numMines(r, c) == around;
+      }
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(counted, true);
+    t.checkExpect(a.containsMine(1, -1), false);
+    t.checkExpect(new ChunkedBoard(9L, 0.2, 64).mineAt(70000, -90000),
+        a.mineAt(70000, -90000));
+    t.checkConstructorException(new IllegalArgumentException("Invalid Mine Density"),
+        "ChunkedBoard", 1L, 0.05, 64);
+  }
+
+  // tests revealing from the origin, flood-filling across chunks
+  void testChunkedReveal(Tester t) {
+    ChunkedBoard b = new ChunkedBoard(3L, 0.15, 64);
+    Game g = b.game();
+    int opened = g.reveal(ChunkedBoard.ORIGIN, ChunkedBoard.ORIGIN);
+    t.checkExpect(opened > 0, true);
+    t.checkExpect(g.status(), GameStatus.PLAYING);
+    t.checkExpect(b.isRevealed(0, 0), true);
+    t.checkExpect(g.reveal(ChunkedBoard.ORIGIN, ChunkedBoard.ORIGIN), 0);
+    t.checkExpect(g.safeRemaining, Integer.MAX_VALUE - opened);
+
+    b.flag(500, 500);
+    t.checkExpect(b.isFlagged(500, 500), true);
+    t.checkExpect(b.reveal(500, 500), 0);
+  }
+
+  // tests that evicted chunks keep their revealed and flagged cells and that memory
+  // stays within the cache
+  void testChunkedEviction(Tester t) {
+    ChunkedBoard b = new ChunkedBoard(5L, 0.3, 8);
+    b.reveal(0, 0);
+    b.flag(3, 3);
+    for (int k = 1; k <= 40; k++) {
+      b.isRevealed(k * ChunkedBoard.SIZE * 3, -k * ChunkedBoard.SIZE);
+    }
+    t.checkExpect(b.chunks.size() <= 8, true);
+    t.checkExpect(b.evicted.size() >= 1, true);
+    int before = b.built;
+    t.checkExpect(b.isRevealed(0, 0), true);
+    t.checkExpect(b.isFlagged(3, 3), true);
+    t.checkExpect(b.built, before + 1);
+  }
+
+  // tests that the state of an evicted chunk is kept exactly and compactly
+  void testChunkedEvictedState(Tester t) {
+    ChunkedBoard b = new ChunkedBoard(8L, 0.2, 8);
+    Chunk opened = b.chunk(5 * ChunkedBoard.SIZE, 0);
+    Arrays.fill(opened.revealedBits, -1L);
+    Chunk mixed = b.chunk(-5 * ChunkedBoard.SIZE, 0);
+    long[] revealed = new long[opened.revealedBits.length];
+    long[] flagged = new long[opened.revealedBits.length];
+    Random rand = new Random(4);
+    for (int w = 0; w < revealed.length; w++) {
+      revealed[w] = rand.nextLong();
+      flagged[w] = rand.nextLong() & ~revealed[w];
+    }
+    mixed.revealedBits = revealed.clone();
+    mixed.flaggedBits = flagged.clone();
+    b.evict(opened);
+    b.evict(mixed);
+    t.checkExpect(b.evicted.get(ChunkedBoard.key(5, 0)).length, 3);
+    t.checkExpect(b.evicted.get(ChunkedBoard.key(-5, 0)).length, 512);
+    b.chunks.remove(ChunkedBoard.key(5, 0));
+    b.chunks.remove(ChunkedBoard.key(-5, 0));
+    t.checkExpect(b.chunk(5 * ChunkedBoard.SIZE + 63, 63).revealedBits[63], -1L);
+    Chunk back = b.chunk(-5 * ChunkedBoard.SIZE, 0);
+    t.checkExpect(Arrays.equals(back.revealedBits, revealed), true);
+    t.checkExpect(Arrays.equals(back.flaggedBits, flagged), true);
+    t.checkExpect(b.evicted.isEmpty(), true);
+
+    Chunk sparse = b.chunk(0, 9 * ChunkedBoard.SIZE);
+    sparse.revealedBits[5] = 1L << 7;
+    sparse.flaggedBits[63] = 3L << 62;
+    b.evict(sparse);
+    t.checkExpect(b.evicted.get(ChunkedBoard.key(0, 9)).length, 4);
+    t.checkExpect(b.evictedBytes, 8L);
+    b.chunks.remove(ChunkedBoard.key(0, 9));
+    t.checkExpect(b.isRevealed(5, 9 * ChunkedBoard.SIZE + 7), true);
+    t.checkExpect(b.isFlagged(63, 9 * ChunkedBoard.SIZE + 63), true);
+    t.checkExpect(b.isFlagged(63, 9 * ChunkedBoard.SIZE + 61), false);
+    t.checkExpect(b.evicted.isEmpty(), true);
+    t.checkExpect(b.evictedBytes, 0L);
+  }
+
+  // tests that a Game plays the window of an endless board, and that the state evicted
+  // while exploring far and wide stays small
+  void testChunkedGame(Tester t) {
+    ChunkedBoard b = new ChunkedBoard(11L, 0.15, 16);
+    Game g = b.game();
+    int origin = b.index(ChunkedBoard.ORIGIN, ChunkedBoard.ORIGIN);
+    int opened = g.reveal(ChunkedBoard.ORIGIN, ChunkedBoard.ORIGIN);
+    t.checkExpect(opened > 1, true);
+    t.checkExpect(g.delta.size, opened);
+    t.checkExpect(b.isRevealed(0, 0), true);
+    t.checkExpect(g.board.isRevealed(origin), true);
+    t.checkExpect(g.status(), GameStatus.PLAYING);
+    t.checkExpect(g.flag(ChunkedBoard.ORIGIN + 2000, ChunkedBoard.ORIGIN), true);
+    t.checkExpect(b.isFlagged(2000, 0), true);
+
+    int[] near = new int[8];
+    t.checkExpect(b.neighbors(origin, near), 8);
+    t.checkExpect(b.neighbors(0, near), 3);
+    t.checkExpect(ChunkedBoard.rowOf(near[0]) >= -ChunkedBoard.ORIGIN, true);
+
+    for (int k = 0; k < 200; k++) {
+      int row = ChunkedBoard.ORIGIN + (k % 20 - 10) * 3 * ChunkedBoard.SIZE;
+      int column = ChunkedBoard.ORIGIN + (k / 20 - 5) * 3 * ChunkedBoard.SIZE;
+      if (!b.containsMine(b.index(row, column))) {
+        g.reveal(row, column);
+      }
+    }
+    t.checkExpect(b.chunks.size() <= 16, true);
+    t.checkExpect(b.evicted.size() > 50, true);
+    t.checkExpect(b.evictedBytes < 64L * b.evicted.size(), true);
+    t.checkExpect(g.status(), GameStatus.PLAYING);
+
+    int mine = -1;
+    for (int column = ChunkedBoard.ORIGIN + 3000; mine < 0; column++) {
+      if (b.containsMine(b.index(ChunkedBoard.ORIGIN, column))) {
+        mine = column;
+      }
+    }
+    t.checkExpect(g.reveal(ChunkedBoard.ORIGIN, mine), 1);
+    t.checkExpect(g.status(), GameStatus.LOST);
+  }
+
+  // tests that an endless game is played through a viewport centred on (0, 0)
+  void testChunkedViewport(Tester t) {
+    ChunkedBoard b = new ChunkedBoard(11L, 0.15, 16);
+    ViewportWorld w = new ViewportWorld(b.game(), 800, 600);
+    w.centerOn(ChunkedBoard.ORIGIN, ChunkedBoard.ORIGIN);
+    w.makeScene();
+    t.checkExpect(w.drawn, 17 * 13);
+    t.checkExpect(b.built <= 4, true);
+    w.onMouseClicked(new Posn(400, 300), "LeftButton");
+    t.checkExpect(b.isRevealed(0, 0), true);
+    t.checkExpect(w.game.status(), GameStatus.PLAYING);
+  }
+
+  // tests undoing and redoing moves on an endless game, including the move that lost it
+  void testChunkedUndo(Tester t) {
+    ChunkedBoard b = new ChunkedBoard(11L, 0.15, 16);
+    Game g = b.game();
+    g.startJournal();
+    int opened = g.reveal(ChunkedBoard.ORIGIN, ChunkedBoard.ORIGIN);
+    int mine = -1;
+    for (int column = ChunkedBoard.ORIGIN + 3000; mine < 0; column++) {
+      if (b.containsMine(b.index(ChunkedBoard.ORIGIN, column))) {
+        mine = column;
+      }
+    }
+    g.reveal(ChunkedBoard.ORIGIN, mine);
+    t.checkExpect(g.status(), GameStatus.LOST);
+
+    t.checkExpect(g.undo(), true);
+    t.checkExpect(g.status(), GameStatus.PLAYING);
+    t.checkExpect(b.isRevealed(0, mine - ChunkedBoard.ORIGIN), false);
+    t.checkExpect(g.undo(), true);
+    t.checkExpect(b.isRevealed(0, 0), false);
+    t.checkExpect(g.safeRemaining, Integer.MAX_VALUE);
+    t.checkExpect(g.undo(), false);
+
+    t.checkExpect(g.redo(), true);
+    t.checkExpect(g.delta.size, opened);
+    t.checkExpect(b.isRevealed(0, 0), true);
+    t.checkExpect(g.status(), GameStatus.PLAYING);
+  }
+}
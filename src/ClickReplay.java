@@ -0,0 +1,374 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javalib.worldimages.Posn;
+import tester.Tester;
+
+// Records the input of Minesweeper worlds as it happens, in the varint style of GameLog.
+// A log is the magic number followed by one record per session:
+//   rows, columns and mines as varints, a byte set if the first click is safe and the
+//   8-byte seed the world was made from,
+//   then the input events, one varint each of the input's number in INPUTS plus one,
+//   the microseconds since the previous event and the x and y of the mouse (0 for keys),
+//   ended by a 0.
+// Each event is flushed as it is written, so a session is kept however the window closes
+class ClickLog {
+  static final int MAGIC = 0x4D534353;
+  // the inputs a world reacts to, numbered by their position
+  static final List<String> INPUTS = List.of("LeftButton", "RightButton", "MiddleButton",
+      "u", "r");
+  // inputs from this number on are keys
+  static final int FIRST_KEY = 3;
+
+  OutputStream out;
+  // whether a session has been started and not ended
+  boolean open;
+  // time of the last event, in nanoseconds
+  long last;
+
+  ClickLog(OutputStream out) throws IOException {
+    this.out = out;
+    this.open = false;
+    this.last = 0;
+    for (int shift = 24; shift >= 0; shift -= 8) {
+      out.write(MAGIC >>> shift);
+    }
+  }
+
+  // starts a session on a world made by new Minesweeper(rows, columns, mines, seed,
+  // firstClickSafe) at the given time, and returns the world, recording to this log
+  Minesweeper begin(int rows, int columns, int mines, long seed, boolean firstClickSafe,
+      long now) throws IOException {
+    if (this.open) {
+      throw new IllegalStateException("Session Not Ended");
+    }
+    Minesweeper world = new Minesweeper(rows, columns, mines, seed, firstClickSafe);
+    this.open = true;
+    this.last = now;
+    GameLog.writeVarint(this.out, rows);
+    GameLog.writeVarint(this.out, columns);
+    GameLog.writeVarint(this.out, mines);
+    this.out.write(firstClickSafe ? 1 : 0);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      this.out.write((int) (seed >>> shift));
+    }
+    world.recording = this;
+    return world;
+  }
+
+  // appends the given input at the given time and mouse position to the current
+  // session, unless it is not one of INPUTS
+  void event(long now, String input, int x, int y) {
+    int code = INPUTS.indexOf(input);
+    if (!this.open || code < 0) {
+      return;
+    }
+    try {
+      GameLog.writeVarint(this.out, code + 1);
+      GameLog.writeVarint(this.out, Math.max(now - this.last, 0) / 1000);
+      GameLog.writeVarint(this.out, Math.max(x, 0));
+      GameLog.writeVarint(this.out, Math.max(y, 0));
+      this.out.flush();
+      this.last = now;
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // ends the current session
+  void end() throws IOException {
+    if (!this.open) {
+      throw new IllegalStateException("No Session Started");
+    }
+    this.out.write(0);
+    this.out.flush();
+    this.open = false;
+  }
+
+  // records a first-click-safe game played in a window to the click log named by the
+  // first argument, on a board with the rows, columns and mines given as the next three
+  // (30, 30 and 150 by default). The session ends when the game is won or lost, and one
+  // cut off by closing the window is kept up to its last event
+  public static void main(String[] args) throws IOException {
+    int rows = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+    int columns = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+    int mines = args.length > 3 ? Integer.parseInt(args[3]) : 150;
+    ClickLog log = new ClickLog(new BufferedOutputStream(Files.newOutputStream(
+        Paths.get(args[0]))));
+    Minesweeper world = log.begin(rows, columns, mines, System.nanoTime(), true,
+        System.nanoTime());
+    world.bigBang(IUtils.CELL_SIZE * world.rows, IUtils.CELL_SIZE * world.columns);
+  }
+}
+
+// one session read back from a ClickLog: the world it was played on and its input
+// events, four ints each of input, microseconds since the previous event, x and y
+class ClickSession {
+  int rows;
+  int columns;
+  int mines;
+  boolean firstClickSafe;
+  long seed;
+  IntList events;
+
+  ClickSession(int rows, int columns, int mines, boolean firstClickSafe, long seed) {
+    this.rows = rows;
+    this.columns = columns;
+    this.mines = mines;
+    this.firstClickSafe = firstClickSafe;
+    this.seed = seed;
+    this.events = new IntList();
+  }
+
+  // returns the number of input events in the session
+  int eventCount() {
+    return this.events.size / 4;
+  }
+
+  // plays the session on a new world as fast as it will go, drawing a frame after every
+  // event as the World would, and records the time and the bytes allocated for each
+  // event, from the input handler to the frame, in the given histograms. Returns the
+  // world
+  Minesweeper replay(Histogram nanos, Histogram bytes) {
+    Minesweeper world = new Minesweeper(this.rows, this.columns, this.mines, this.seed,
+        this.firstClickSafe);
+    world.makeScene();
+    for (int k = 0; k < this.events.size; k += 4) {
+      String input = ClickLog.INPUTS.get(this.events.get(k));
+      long start = System.nanoTime();
+      long allocated = ClickReplay.allocated();
+      if (this.events.get(k) < ClickLog.FIRST_KEY) {
+        world.onMouseClicked(new Posn(this.events.get(k + 2), this.events.get(k + 3)), input);
+      }
+      else {
+        world.onKeyEvent(input);
+      }
+      world.makeScene();
+      nanos.record(System.nanoTime() - start);
+      bytes.record(ClickReplay.allocated() - allocated);
+    }
+    return world;
+  }
+}
+
+// the results of replaying sessions: how many events were replayed in how long, and the
+// time and allocation of each
+class ReplayReport {
+  long events;
+  long wallNanos;
+  HistogramSnapshot nanos;
+  HistogramSnapshot bytes;
+
+  ReplayReport(long events, long wallNanos, HistogramSnapshot nanos, HistogramSnapshot bytes) {
+    this.events = events;
+    this.wallNanos = wallNanos;
+    this.nanos = nanos;
+    this.bytes = bytes;
+  }
+
+  // returns the number of events replayed per second of wall time
+  double clicksPerSecond() {
+    return this.wallNanos == 0 ? 0 : this.events * 1e9 / this.wallNanos;
+  }
+
+  // returns the results on one line
+  @Override
+  public String toString() {
+    return String.format(Locale.ROOT,
+        "%d clicks in %.1f ms: %.0f clicks/s, latency p50 %d ns p99 %d ns p99.9 %d ns max %d ns,"
+            + " %.0f bytes/click",
+        this.events, this.wallNanos / 1e6, this.clicksPerSecond(), this.nanos.percentile(50),
+        this.nanos.percentile(99), this.nanos.percentile(99.9), this.nanos.max,
+        this.bytes.mean());
+  }
+}
+
+// Replays recorded sessions headlessly through the whole input path of the Minesweeper
+// World, from onMouseClicked through the move, the end of game checks and the next
+// frame, so changes to the engine can be compared on the same recorded traffic. Events
+// are replayed back to back, ignoring the pauses recorded between them, and copies of
+// the sessions run on their own worlds on a pool of threads to load the engine the way
+// many players would
+class ClickReplay {
+  ArrayList<ClickSession> sessions;
+
+  ClickReplay(ByteBuffer buffer) {
+    if (buffer.remaining() < 4 || buffer.getInt() != ClickLog.MAGIC) {
+      throw new IllegalArgumentException("Not A Click Log");
+    }
+    this.sessions = new ArrayList<ClickSession>();
+    while (buffer.hasRemaining()) {
+      int rows = (int) GameArchive.readVarint(buffer);
+      int columns = (int) GameArchive.readVarint(buffer);
+      int mines = (int) GameArchive.readVarint(buffer);
+      boolean firstClickSafe = buffer.get() != 0;
+      ClickSession session = new ClickSession(rows, columns, mines, firstClickSafe,
+          buffer.getLong());
+      // a session cut off while it was recorded ends with the log
+      for (long code = buffer.hasRemaining() ? GameArchive.readVarint(buffer) : 0; code > 0;
+          code = buffer.hasRemaining() ? GameArchive.readVarint(buffer) : 0) {
+        session.events.add((int) code - 1);
+        session.events.add((int) GameArchive.readVarint(buffer));
+        session.events.add((int) GameArchive.readVarint(buffer));
+        session.events.add((int) GameArchive.readVarint(buffer));
+      }
+      this.sessions.add(session);
+    }
+  }
+
+  // reads the click log at the given path
+  static ClickReplay read(Path path) throws IOException {
+    return new ClickReplay(ByteBuffer.wrap(Files.readAllBytes(path)));
+  }
+
+  // returns the bytes allocated by this thread so far, or 0 if the JVM doesn't count them
+  static long allocated() {
+    return Metrics.THREADS == null ? 0
+        : Metrics.THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  // replays the given number of copies of every session on the given number of threads
+  // and returns the results
+  ReplayReport run(int copies, int threads) throws InterruptedException {
+    Histogram nanos = new Histogram();
+    Histogram bytes = new Histogram();
+    ArrayList<Callable<Minesweeper>> replays = new ArrayList<Callable<Minesweeper>>();
+    long events = 0;
+    for (int copy = 0; copy < copies; copy++) {
+      for (ClickSession session : this.sessions) {
+        replays.add(() -> session.replay(nanos, bytes));
+        events += session.eventCount();
+      }
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      long start = System.nanoTime();
+      for (Future<Minesweeper> replay : pool.invokeAll(replays)) {
+        replay.get();
+      }
+      return new ReplayReport(events, System.nanoTime() - start, nanos.snapshot(),
+          bytes.snapshot());
+    }
+    catch (ExecutionException e) {
+      throw new IllegalStateException("Replay Failed", e.getCause());
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  // replays the click log named by the first argument, running the number of copies
+  // given as the second (1 by default) on the number of threads given as the third (the
+  // number of processors by default), after one untimed round to warm up
+  public static void main(String[] args) throws IOException, InterruptedException {
+    ClickReplay replay = ClickReplay.read(Paths.get(args[0]));
+    int copies = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+    int threads = args.length > 2 ? Integer.parseInt(args[2])
+        : Runtime.getRuntime().availableProcessors();
+    replay.run(copies, threads);
+    System.out.println(replay.run(copies, threads));
+  }
+}
+
+// examples and tests for recording and replaying click streams
+class ExamplesClickReplay {
+
+  // records a session of clicks on a seeded world into the given log
+  Minesweeper play(ClickLog log, long seed) throws IOException {
+    Minesweeper world = log.begin(10, 10, 12, seed, true, 0);
+    world.onMouseClicked(new Posn(260, 260), "LeftButton");
+    world.onMouseClicked(new Posn(10, 10), "RightButton");
+    world.onKeyEvent("u");
+    world.onKeyEvent("x");
+    world.onMouseClicked(new Posn(60, 460), "LeftButton");
+    log.end();
+    return world;
+  }
+
+  // tests that a recorded session replays to the same board
+  void testClickRecordReplay(Tester t) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ClickLog log = new ClickLog(bytes);
+    Minesweeper played = this.play(log, 3L);
+    this.play(log, 4L);
+
+    ClickReplay replay = new ClickReplay(ByteBuffer.wrap(bytes.toByteArray()));
+    t.checkExpect(replay.sessions.size(), 2);
+    ClickSession first = replay.sessions.get(0);
+    t.checkExpect(first.eventCount(), 4);
+    t.checkExpect(first.events.get(0), 0);
+    t.checkExpect(first.events.get(2), 260);
+    t.checkExpect(first.events.get(8), 3);
+
+    Histogram nanos = new Histogram();
+    Histogram allocated = new Histogram();
+    Minesweeper again = first.replay(nanos, allocated);
+    boolean same = true;
+    for (int i = 0; i < 100; i++) {
+      same = same && played.game.board.isRevealed(i) == again.game.board.isRevealed(i)
+          && played.game.board.isFlagged(i) == again.game.board.isFlagged(i);
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(again.game.safeRemaining, played.game.safeRemaining);
+    t.checkExpect(nanos.snapshot().count, 4L);
+    t.checkConstructorException(new IllegalArgumentException("Not A Click Log"),
+        "ClickReplay", ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 }));
+  }
+
+  // tests replaying many copies of the sessions in parallel
+  void testClickReplayParallel(Tester t) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ClickLog log = new ClickLog(bytes);
+    for (long seed = 0; seed < 5; seed++) {
+      this.play(log, seed);
+    }
+    log.begin(10, 10, 12, 9L, true, 0).onMouseClicked(new Posn(260, 260), "LeftButton");
+
+    ClickReplay replay = new ClickReplay(ByteBuffer.wrap(bytes.toByteArray()));
+    t.checkExpect(replay.sessions.size(), 6);
+    ReplayReport report = replay.run(20, 4);
+    t.checkExpect(report.events, 20L * (5 * 4 + 1));
+    t.checkExpect(report.nanos.count, report.events);
+    t.checkExpect(report.clicksPerSecond() > 0, true);
+    t.checkExpect(report.nanos.percentile(99) <= report.nanos.max, true);
+    t.checkExpect(report.toString().contains("clicks/s"), true);
+  }
+
+  // tests that a session ends when the game it records is lost
+  void testClickLogEndsWithWorld(Tester t) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ClickLog log = new ClickLog(bytes);
+    Minesweeper world = log.begin(10, 10, 12, 5L, true, 0);
+    world.onMouseClicked(new Posn(260, 260), "LeftButton");
+    int mine = 0;
+    while (!world.game.board.containsMine(mine)) {
+      mine++;
+    }
+    world.onMouseClicked(new Posn(mine / 10 * 50 + 10, mine % 10 * 50 + 10), "LeftButton");
+    t.checkExpect(world.game.status(), GameStatus.LOST);
+    t.checkExpect(log.open, false);
+    t.checkExpect(world.recording, null);
+
+    world.onMouseClicked(new Posn(10, 10), "RightButton");
+    ClickReplay replay = new ClickReplay(ByteBuffer.wrap(bytes.toByteArray()));
+    t.checkExpect(replay.sessions.size(), 1);
+    t.checkExpect(replay.sessions.get(0).eventCount(), 2);
+    t.checkExpect(bytes.toByteArray()[bytes.size() - 1], (byte) 0);
+  }
+}
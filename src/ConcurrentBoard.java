@@ -0,0 +1,290 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import tester.Tester;
+
+// A sentinel-padded board that many threads can reveal and flag on at once. Every change
+// to a cell is a compare-and-set of its byte: a reveal claims a cell by setting its
+// revealed bit only if it is still covered and unflagged, and a flag toggle flips its
+// flagged bit only if it is still covered, retrying when another thread changed the
+// byte in between. A cell is therefore revealed by exactly one thread however many
+// flood fills reach it, a toggle is never lost, and a flag and a reveal of the same
+// cell never both succeed. Flood fills keep their stack on the calling thread, so
+// threads filling different regions share nothing but the cells where their regions
+// meet. Mines and adjacent counts are set up before the board is shared and never
+// change afterwards
+class ConcurrentBoard extends PaddedBoard {
+  static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+  ConcurrentBoard(int rows, int columns) {
+    super(rows, columns);
+  }
+
+  // checks if the cell at position p in storage has all the given flags, as last set
+  // by any thread
+  @Override
+  boolean has(int p, int flags) {
+    return ((byte) CELLS.getAcquire(this.cells, p) & flags) == flags;
+  }
+
+  // reveals the cell at position p if it is still covered and unflagged, returning
+  // whether this call revealed it
+  boolean claim(int p) {
+    while (true) {
+      byte state = (byte) CELLS.getAcquire(this.cells, p);
+      if ((state & (REVEALED | FLAGGED)) != 0) {
+        return false;
+      }
+      if (CELLS.compareAndSet(this.cells, p, state, (byte) (state | REVEALED))) {
+        return true;
+      }
+    }
+  }
+
+  // reveals the cell at index i if it isn't flagged or revealed, and flood-fills
+  // outwards from it through cells with no adjacent mines, counting only the cells this
+  // call claimed. Adds them to delta when it isn't null and returns how many there were
+  @Override
+  public int reveal(int i, IntList delta) {
+    int p = this.position(i);
+    if (!this.claim(p)) {
+      return 0;
+    }
+    if (delta != null) {
+      delta.add(i);
+    }
+    if ((this.cells[p] & (MINE | COUNT)) != 0) {
+      return 1;
+    }
+
+    int count = 1;
+    IntList stack = new IntList();
+    stack.add(p);
+    while (!stack.isEmpty()) {
+      int q = stack.pop();
+      for (int k = 0; k < 8; k++) {
+        int n = q + this.offsets[k];
+        if (this.claim(n)) {
+          count++;
+          if (delta != null) {
+            delta.add(this.indexOf(n));
+          }
+          if ((this.cells[n] & COUNT) == 0) {
+            stack.add(n);
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  // flags or unflags the cell at index i if it is covered, returning 1 if this call
+  // flagged it, -1 if it unflagged it and 0 if the cell is revealed
+  int toggleFlag(int i) {
+    int p = this.position(i);
+    while (true) {
+      byte state = (byte) CELLS.getAcquire(this.cells, p);
+      if ((state & REVEALED) != 0) {
+        return 0;
+      }
+      if (CELLS.compareAndSet(this.cells, p, state, (byte) (state ^ FLAGGED))) {
+        return (state & FLAGGED) == 0 ? 1 : -1;
+      }
+    }
+  }
+
+  // flags or unflags the cell at index i if it is covered
+  @Override
+  public void flagCell(int i) {
+    this.toggleFlag(i);
+  }
+
+  // covers or uncovers the cell at index i alone, without flood-filling
+  @Override
+  public void setRevealed(int i, boolean revealed) {
+    int p = this.position(i);
+    while (true) {
+      byte state = (byte) CELLS.getAcquire(this.cells, p);
+      byte next = (byte) (revealed ? state | REVEALED : state & ~REVEALED);
+      if (CELLS.compareAndSet(this.cells, p, state, next)) {
+        return;
+      }
+    }
+  }
+}
+
+// A game of Minesweeper on a ConcurrentBoard that several players or bots play at the
+// same time. Every move updates the counters once with the number of cells it claimed,
+// so the number of covered safe cells, the number of flags and the state of the game
+// are exact whatever the moves interleave with
+class CoopGame {
+  ConcurrentBoard board;
+  // number of cells without mines that are still covered
+  AtomicInteger safeRemaining;
+  // number of cells flagged
+  AtomicInteger flags;
+  // whether a cell with a mine has been revealed
+  volatile boolean exploded;
+
+  CoopGame(int rows, int columns, int mines, long seed) {
+    this.board = new ConcurrentBoard(rows, columns);
+    new Utils().checkRange(mines, -1, this.board.cellCount(), "Invalid Number of Mines");
+    for (int i : new MineGenerator(seed).choose(this.board.cellCount(), mines)) {
+      this.board.addAMine(i);
+    }
+    this.board.countAllMines();
+    this.safeRemaining = new AtomicInteger(this.board.cellCount() - mines);
+    this.flags = new AtomicInteger(0);
+    this.exploded = false;
+  }
+
+  // returns the state of the game
+  GameStatus status() {
+    if (this.exploded) {
+      return GameStatus.LOST;
+    }
+    else if (this.safeRemaining.get() == 0) {
+      return GameStatus.WON;
+    }
+    else {
+      return GameStatus.PLAYING;
+    }
+  }
+
+  // reveals the cell at the given row and column, adding the cells this move revealed
+  // to delta when it isn't null, and returns how many there were
+  int reveal(int row, int column, IntList delta) {
+    int i = this.board.index(row, column);
+    int count = this.board.reveal(i, delta);
+    if (count > 0 && this.board.containsMine(i)) {
+      this.exploded = true;
+      this.safeRemaining.addAndGet(1 - count);
+    }
+    else if (count > 0) {
+      this.safeRemaining.addAndGet(-count);
+    }
+    return count;
+  }
+
+  // flags or unflags the cell at the given row and column, returning whether it is now
+  // flagged
+  boolean flag(int row, int column) {
+    int change = this.board.toggleFlag(this.board.index(row, column));
+    if (change != 0) {
+      this.flags.addAndGet(change);
+    }
+    return change > 0;
+  }
+}
+
+// examples and tests for the concurrent board
+class ExamplesConcurrentBoard {
+
+  // runs the given tasks on their own threads and waits for them all
+  void runAll(ArrayList<Runnable> tasks) throws InterruptedException {
+    ArrayList<Thread> threads = new ArrayList<Thread>();
+    for (Runnable task : tasks) {
+      Thread thread = new Thread(task);
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+
+  // tests that concurrent flood fills reveal every cell once and keep the counters exact
+  void testConcurrentReveals(Tester t) throws InterruptedException {
+    CoopGame game = new CoopGame(300, 300, 300 * 300 / 10, 4L);
+    PaddedBoard expected = new PaddedBoard(300, 300);
+    for (int i = 0; i < 300 * 300; i++) {
+      if (game.board.containsMine(i)) {
+        expected.addAMine(i);
+      }
+    }
+    expected.countAllMines();
+    int[] clicks = new MineGenerator(5L).choose(300 * 300, 2000);
+    int[] counts = new int[8];
+    ArrayList<Runnable> tasks = new ArrayList<Runnable>();
+    for (int k = 0; k < 8; k++) {
+      int player = k;
+      tasks.add(() -> {
+        for (int c = 0; c < clicks.length; c++) {
+          int i = clicks[(c + player * 250) % clicks.length];
+          if (!game.board.containsMine(i)) {
+            counts[player] += game.reveal(i / 300, i % 300, null);
+          }
+        }
+      });
+    }
+    this.runAll(tasks);
+
+    int revealed = 0;
+    for (int i : clicks) {
+      if (!expected.containsMine(i)) {
+        expected.reveal(i, null);
+      }
+    }
+    boolean same = true;
+    for (int i = 0; i < 300 * 300; i++) {
+      same = same && game.board.isRevealed(i) == expected.isRevealed(i);
+      revealed += expected.isRevealed(i) ? 1 : 0;
+    }
+    int total = 0;
+    for (int count : counts) {
+      total += count;
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(total, revealed);
+    t.checkExpect(game.safeRemaining.get(), 300 * 300 - 9000 - revealed);
+  }
+
+  // tests that no flag toggle is lost, and that revealed cells can't be flagged
+  void testConcurrentFlags(Tester t) throws InterruptedException {
+    CoopGame game = new CoopGame(10, 10, 0, 1L);
+    ArrayList<Runnable> tasks = new ArrayList<Runnable>();
+    for (int k = 0; k < 7; k++) {
+      tasks.add(() -> {
+        for (int n = 0; n < 1001; n++) {
+          for (int c = 0; c < 10; c++) {
+            game.flag(3, c);
+          }
+        }
+      });
+    }
+    this.runAll(tasks);
+    boolean flagged = true;
+    for (int c = 0; c < 10; c++) {
+      flagged = flagged && game.board.isFlagged(30 + c);
+    }
+    t.checkExpect(flagged, true);
+    t.checkExpect(game.flags.get(), 10);
+    t.checkExpect(game.reveal(0, 0, null), 30);
+    t.checkExpect(game.flag(0, 0), false);
+    t.checkExpect(game.status(), GameStatus.PLAYING);
+  }
+
+  // tests players clearing their own bands of a board to a win
+  void testConcurrentWin(Tester t) throws InterruptedException {
+    CoopGame game = new CoopGame(64, 64, 400, 9L);
+    ArrayList<Runnable> tasks = new ArrayList<Runnable>();
+    for (int k = 0; k < 4; k++) {
+      int band = k;
+      tasks.add(() -> {
+        for (int r = band * 16; r < band * 16 + 16; r++) {
+          for (int c = 0; c < 64; c++) {
+            if (!game.board.containsMine(r * 64 + c)) {
+              game.reveal(r, c, null);
+            }
+          }
+        }
+      });
+    }
+    this.runAll(tasks);
+    t.checkExpect(game.safeRemaining.get(), 0);
+    t.checkExpect(game.status(), GameStatus.WON);
+    t.checkExpect(game.reveal(0, 0, null), 0);
+  }
+}
@@ -0,0 +1,356 @@
+import java.util.Random;
+
+import tester.Tester;
+
+// the state of a game of Minesweeper
+enum GameStatus {
+  PLAYING, WON, LOST
+}
+
+// Represents the rules of Minesweeper played on a board, with no rendering attached.
+// Moves are made by row and column (or by cell index), every move keeps the number of
+// covered safe cells and whether a mine went off up to date, so status() is constant
+// time, and the cells changed by the last move are left in delta for whoever has to
+// react to them. The Minesweeper World is a thin adapter over one of these; solvers,
+// simulations and servers drive a Game on a packed Board directly
+class Game {
+  IBoard board;
+  // number of cells without mines that are still covered
+  int safeRemaining;
+  // whether a cell with a mine has been revealed
+  boolean exploded;
+  // indices of the cells changed by the last move
+  IntList delta;
+  // whether the mines are still to be placed by the first reveal, how many there are
+  // and the random number generator, or the no-guess generator, that will place them
+  boolean minesPending;
+  int pendingMines;
+  Random rand;
+  NoGuessGenerator noGuess;
+  // the moves made so far, kept for undo and redo once startJournal is called
+  MoveJournal journal;
+
+  Game(IBoard board) {
+    this(board, 0);
+    for (int i = 0; i < board.cellCount(); i++) {
+      if (!board.containsMine(i) && !board.isRevealed(i)) {
+        this.safeRemaining++;
+      }
+      this.exploded = this.exploded || board.loseCondition(i);
+    }
+  }
+
+  // constructor for a game on a board too large to look at every cell of, such as the
+  // window of an endless ChunkedBoard, with nothing revealed yet and the given number of
+  // covered cells without mines
+  Game(IBoard board, int safeRemaining) {
+    this.board = board;
+    this.delta = new IntList();
+    this.minesPending = false;
+    this.pendingMines = 0;
+    this.rand = null;
+    this.noGuess = null;
+    this.journal = null;
+    this.safeRemaining = safeRemaining;
+    this.exploded = false;
+  }
+
+  // constructor for a headless game on a packed board whose mines are reproducible from
+  // the given seed. When firstClickSafe is set the mines are placed by the first reveal,
+  // away from the revealed cell and its neighbours
+  Game(int rows, int columns, int mines, long seed, boolean firstClickSafe) {
+    this(new Board(rows, columns), mines, seed, firstClickSafe);
+  }
+
+  // constructor for a headless game on the given empty board, with mines placed as by
+  // the constructor above
+  Game(IBoard board, int mines, long seed, boolean firstClickSafe) {
+    this(board);
+    new Utils().checkRange(mines, -1, this.board.cellCount(), "Invalid Number of Mines");
+    if (firstClickSafe) {
+      this.deferMines(mines, new Random(seed));
+    }
+    else {
+      this.placeMines(new MineGenerator(seed).choose(this.board.cellCount(), mines));
+    }
+  }
+
+  // adds a mine to the cell at index i, returning false if it already had one
+  boolean addAMine(int i) {
+    if (this.board.addAMine(i)) {
+      if (this.board.isRevealed(i)) {
+        this.exploded = true;
+      }
+      else {
+        this.safeRemaining--;
+      }
+      return true;
+    }
+    return false;
+  }
+
+  // places a mine in each of the cells at the given indices and counts adjacent mines
+  void placeMines(int[] cells) {
+    long start = Metrics.start();
+    for (int i : cells) {
+      this.addAMine(i);
+    }
+    this.board.countAllMines();
+    Metrics.recordTime(Metrics.GENERATION_NANOS, start);
+  }
+
+  // waits for the first reveal to place the given number of mines with the given
+  // random number generator
+  void deferMines(int count, Random rand) {
+    this.minesPending = true;
+    this.pendingMines = count;
+    this.rand = rand;
+  }
+
+  // waits for the first reveal to place mines from the given generator, so the game can
+  // be solved from that reveal without guessing
+  void deferMines(NoGuessGenerator generator) {
+    this.minesPending = true;
+    this.pendingMines = generator.mines;
+    this.noGuess = generator;
+  }
+
+  // returns the state of the game
+  GameStatus status() {
+    if (this.exploded) {
+      return GameStatus.LOST;
+    }
+    else if (this.safeRemaining == 0 && !this.minesPending) {
+      return GameStatus.WON;
+    }
+    else {
+      return GameStatus.PLAYING;
+    }
+  }
+
+  // reveals the cell at the given row and column and returns how many cells were newly
+  // revealed
+  int reveal(int row, int column) {
+    return this.revealCell(this.board.index(row, column));
+  }
+
+  // flags or unflags the cell at the given row and column, returning whether it is now
+  // flagged
+  boolean flag(int row, int column) {
+    return this.flagCell(this.board.index(row, column));
+  }
+
+  // reveals the covered neighbours of the cell at the given row and column if it is a
+  // revealed number with as many flags around it, returning how many cells were newly
+  // revealed
+  int chord(int row, int column) {
+    return this.chordCell(this.board.index(row, column));
+  }
+
+  // reveals the cell at index i, flood-filling through cells with no adjacent mines
+  int revealCell(int i) {
+    this.delta.clear();
+    if (this.minesPending) {
+      this.minesPending = false;
+      int row = i / this.board.columnCount();
+      int column = i % this.board.columnCount();
+      if (this.noGuess != null) {
+        this.placeMines(this.noGuess.generate(row, column));
+      }
+      else {
+        int[] safe = MineGenerator.safeZone(this.board.rowCount(), this.board.columnCount(),
+            this.pendingMines, row, column);
+        this.placeMines(new MineGenerator(this.rand).choose(this.board.cellCount(),
+            this.pendingMines, safe));
+      }
+    }
+    long start = Metrics.start();
+    boolean exploded = this.exploded;
+    int count = this.countRevealed(i, this.board.reveal(i, this.delta));
+    Metrics.recordReveal(start, count);
+    this.journal(MoveJournal.REVEAL, exploded);
+    return count;
+  }
+
+  // flags or unflags the cell at index i, returning whether it is now flagged
+  boolean flagCell(int i) {
+    this.delta.clear();
+    this.board.flagCell(i);
+    this.delta.add(i);
+    this.journal(MoveJournal.FLAG, this.exploded);
+    return this.board.isFlagged(i);
+  }
+
+  // reveals the covered neighbours of the cell at index i if it is a revealed number
+  // with as many flags around it, returning how many cells were newly revealed
+  int chordCell(int i) {
+    this.delta.clear();
+    if (!this.board.isRevealed(i) || this.board.containsMine(i)
+        || this.board.numMines(i) == 0) {
+      return 0;
+    }
+    int[] around = new int[8];
+    int n = this.board.neighbors(i, around);
+    int flags = 0;
+    for (int k = 0; k < n; k++) {
+      if (this.board.isFlagged(around[k])) {
+        flags++;
+      }
+    }
+    if (flags != this.board.numMines(i)) {
+      return 0;
+    }
+
+    long start = Metrics.start();
+    boolean exploded = this.exploded;
+    int count = 0;
+    for (int k = 0; k < n; k++) {
+      count += this.countRevealed(around[k], this.board.reveal(around[k], this.delta));
+    }
+    Metrics.recordReveal(start, count);
+    this.journal(MoveJournal.REVEAL, exploded);
+    return count;
+  }
+
+  // updates the counters after count cells were revealed starting from the cell at
+  // index i, and returns count. A flood fill only continues through cells with no
+  // adjacent mines, so the cell it started from is the only one that can hold a mine
+  int countRevealed(int i, int count) {
+    if (count > 0 && this.board.containsMine(i)) {
+      this.exploded = true;
+      this.safeRemaining -= count - 1;
+    }
+    else {
+      this.safeRemaining -= count;
+    }
+    return count;
+  }
+
+  // starts recording moves, so they can be undone and redone
+  void startJournal() {
+    this.journal = new MoveJournal();
+  }
+
+  // records the move that changed the cells in delta, if moves are being recorded and
+  // it changed any
+  void journal(int kind, boolean exploded) {
+    if (this.journal != null && !this.delta.isEmpty()) {
+      this.journal.record(kind, exploded, this.delta);
+    }
+  }
+
+  // takes back the last move made, leaving the cells it changed in delta, and returns
+  // false if there is none. Mines placed by the first reveal stay where they are
+  boolean undo() {
+    if (this.journal == null || !this.journal.canUndo()) {
+      return false;
+    }
+    int move = this.journal.back();
+    this.delta.clear();
+    this.journal.cells(move, this.delta);
+    for (int k = 0; k < this.delta.size; k++) {
+      int i = this.delta.get(k);
+      if (this.journal.kind(move) == MoveJournal.FLAG) {
+        this.board.flagCell(i);
+      }
+      else {
+        this.board.setRevealed(i, false);
+        this.safeRemaining += this.board.containsMine(i) ? 0 : 1;
+      }
+    }
+    this.exploded = this.journal.explodedBefore(move);
+    return true;
+  }
+
+  // makes the last move undone again, leaving the cells it changed in delta, and
+  // returns false if there is none
+  boolean redo() {
+    if (this.journal == null || !this.journal.canRedo()) {
+      return false;
+    }
+    int move = this.journal.forward();
+    this.delta.clear();
+    this.journal.cells(move, this.delta);
+    for (int k = 0; k < this.delta.size; k++) {
+      int i = this.delta.get(k);
+      if (this.journal.kind(move) == MoveJournal.FLAG) {
+        this.board.flagCell(i);
+      }
+      else {
+        this.board.setRevealed(i, true);
+        this.exploded = this.exploded || this.board.containsMine(i);
+        this.safeRemaining -= this.board.containsMine(i) ? 0 : 1;
+      }
+    }
+    return true;
+  }
+}
+
+// examples and tests for the headless game
+class ExamplesGame {
+
+  // builds a game on the 3x3 board used by ExamplesMinesweeper, with mines in the top
+  // left corner
+  Game corner() {
+    Game g = new Game(new Board(3, 3));
+    g.placeMines(new int[] { 0, 1, 3 });
+    return g;
+  }
+
+  // tests playing a game to a win
+  void testGameWin(Tester t) {
+    Game g = this.corner();
+    t.checkExpect(g.safeRemaining, 6);
+    t.checkExpect(g.status(), GameStatus.PLAYING);
+
+    t.checkExpect(g.reveal(2, 2), 4);
+    t.checkExpect(g.delta.toArray(), new int[] { 8, 7, 4, 5 });
+    t.checkExpect(g.flag(0, 2), true);
+    t.checkExpect(g.delta.toArray(), new int[] { 2 });
+    t.checkExpect(g.reveal(0, 2), 0);
+    t.checkExpect(g.flag(0, 2), false);
+    t.checkExpect(g.reveal(0, 2), 1);
+    t.checkExpect(g.status(), GameStatus.PLAYING);
+    t.checkExpect(g.reveal(2, 0), 1);
+    t.checkExpect(g.safeRemaining, 0);
+    t.checkExpect(g.status(), GameStatus.WON);
+  }
+
+  // tests chording and losing by chording around a wrong flag
+  void testGameChord(Tester t) {
+    Game g = this.corner();
+    g.reveal(2, 2);
+    t.checkExpect(g.chord(1, 2), 0);
+    g.flag(0, 1);
+    t.checkExpect(g.chord(1, 2), 1);
+    t.checkExpect(g.delta.toArray(), new int[] { 2 });
+    t.checkExpect(g.status(), GameStatus.PLAYING);
+
+    t.checkExpect(g.chord(2, 1), 0);
+    g.flag(1, 0);
+    t.checkExpect(g.chord(2, 1), 1);
+    t.checkExpect(g.status(), GameStatus.WON);
+
+    Game lose = this.corner();
+    lose.reveal(2, 2);
+    lose.flag(0, 2);
+    t.checkExpect(lose.chord(1, 2), 1);
+    t.checkExpect(lose.status(), GameStatus.LOST);
+  }
+
+  // tests seeded headless games and the first-click-safe mode
+  void testGameSeeded(Tester t) {
+    Game a = new Game(16, 30, 99, 5L, false);
+    Game b = new Game(16, 30, 99, 5L, false);
+    Game safe = new Game(16, 30, 99, 5L, true);
+
+    t.checkExpect(((Board) a.board).mineBits, ((Board) b.board).mineBits);
+    t.checkExpect(a.safeRemaining, 16 * 30 - 99);
+    t.checkExpect(safe.status(), GameStatus.PLAYING);
+    t.checkExpect(safe.reveal(8, 15) > 1, true);
+    t.checkExpect(safe.board.numMines(safe.board.index(8, 15)), 0);
+    t.checkExpect(safe.status(), GameStatus.PLAYING);
+    t.checkConstructorException(new IllegalArgumentException("Invalid Number of Mines"), "Game",
+        3, 3, 10, 1L, false);
+  }
+}
@@ -0,0 +1,329 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import tester.Tester;
+
+// Writes games in the compact binary format read by GameArchive. A corpus is the magic
+// number followed by one record per game:
+//   rows, columns and mines as varints,
+//   a kind byte: SEEDED or SEEDED_SAFE followed by the 8-byte seed the game was made
+//   from, or LAYOUT followed by the mines packed 8 cells to a byte,
+//   then the moves, one varint each of (cell << 2 | action) + 1, ended by a 0.
+// Moves are appended as they are made, so a game can be logged while it is played
+class GameLog {
+  static final int MAGIC = 0x4D535750;
+  static final int SEEDED = 0;
+  static final int SEEDED_SAFE = 1;
+  static final int LAYOUT = 2;
+  static final int REVEAL = 0;
+  static final int FLAG = 1;
+  static final int CHORD = 2;
+
+  OutputStream out;
+  // whether a game has been started and not ended
+  boolean open;
+
+  GameLog(OutputStream out) throws IOException {
+    this.out = out;
+    this.open = false;
+    for (int shift = 24; shift >= 0; shift -= 8) {
+      out.write(MAGIC >>> shift);
+    }
+  }
+
+  // starts a game made by new Game(rows, columns, mines, seed, firstClickSafe)
+  void beginSeeded(int rows, int columns, int mines, long seed, boolean firstClickSafe)
+      throws IOException {
+    this.begin(rows, columns, mines, firstClickSafe ? SEEDED_SAFE : SEEDED);
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      this.out.write((int) (seed >>> shift));
+    }
+  }
+
+  // starts a game on a board with the mines of the given board
+  void beginLayout(IBoard board) throws IOException {
+    this.begin(board.rowCount(), board.columnCount(), board.mineCount(), LAYOUT);
+    int cells = board.cellCount();
+    for (int base = 0; base < cells; base += 8) {
+      int packed = 0;
+      for (int k = 0; k < 8 && base + k < cells; k++) {
+        if (board.containsMine(base + k)) {
+          packed |= 1 << k;
+        }
+      }
+      this.out.write(packed);
+    }
+  }
+
+  // writes the start of a record
+  void begin(int rows, int columns, int mines, int kind) throws IOException {
+    if (this.open) {
+      throw new IllegalStateException("Game Not Ended");
+    }
+    this.open = true;
+    GameLog.writeVarint(this.out, rows);
+    GameLog.writeVarint(this.out, columns);
+    GameLog.writeVarint(this.out, mines);
+    this.out.write(kind);
+  }
+
+  // appends a move of the given action on the cell at index cell to the current game
+  void move(int action, int cell) throws IOException {
+    if (!this.open) {
+      throw new IllegalStateException("No Game Started");
+    }
+    GameLog.writeVarint(this.out, (((long) cell << 2) | action) + 1);
+  }
+
+  // ends the current game
+  void end() throws IOException {
+    if (!this.open) {
+      throw new IllegalStateException("No Game Started");
+    }
+    this.out.write(0);
+    this.open = false;
+  }
+
+  // writes value as an unsigned varint: 7 bits a byte, low bits first, with the top bit
+  // of every byte but the last set
+  static void writeVarint(OutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+}
+
+// Reads a corpus of games written by GameLog straight from a byte buffer, normally a
+// read-only memory mapping of the corpus file, so the operating system pages the file in
+// as it is read and the heap holds none of it. The reader is a cursor: next() moves to
+// the following game and decodes its header into this object's fields, nextMove()
+// decodes its moves one at a time, and replay() plays them on a packed Board, so
+// streaming through a corpus allocates nothing per move and nothing per game unless the
+// game is replayed
+class GameArchive {
+  ByteBuffer buffer;
+  // the header of the current game
+  int rows;
+  int columns;
+  int mines;
+  int kind;
+  long seed;
+  // position of the packed mines of a LAYOUT game
+  int layout;
+  // whether the moves of the current game have all been read
+  boolean movesDone;
+
+  GameArchive(ByteBuffer buffer) {
+    this.buffer = buffer;
+    if (buffer.remaining() < 4 || buffer.getInt() != GameLog.MAGIC) {
+      throw new IllegalArgumentException("Not A Game Archive");
+    }
+    this.movesDone = true;
+  }
+
+  // maps the corpus file at the given path; a mapping is limited to 2GB, so larger
+  // corpora are split across files
+  static GameArchive open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Archive Too Large");
+      }
+      return new GameArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  // reads an unsigned varint from the buffer
+  long readVarint() {
+    return GameArchive.readVarint(this.buffer);
+  }
+
+  // reads an unsigned varint from the given buffer
+  static long readVarint(ByteBuffer buffer) {
+    long value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  // moves to the next game, skipping the moves of the current one that haven't been
+  // read, and returns false if there are no more games
+  boolean next() {
+    while (!this.movesDone) {
+      this.nextMove();
+    }
+    if (!this.buffer.hasRemaining()) {
+      return false;
+    }
+    this.rows = (int) this.readVarint();
+    this.columns = (int) this.readVarint();
+    this.mines = (int) this.readVarint();
+    this.kind = this.buffer.get();
+    if (this.kind == GameLog.LAYOUT) {
+      this.seed = 0;
+      this.layout = this.buffer.position();
+      this.buffer.position(this.layout + (this.rows * this.columns + 7) / 8);
+    }
+    else {
+      this.seed = this.buffer.getLong();
+      this.layout = -1;
+    }
+    this.movesDone = false;
+    return true;
+  }
+
+  // returns the next move of the current game as (cell << 2 | action), or -1 once every
+  // move has been read
+  long nextMove() {
+    if (this.movesDone) {
+      return -1;
+    }
+    long move = this.readVarint() - 1;
+    this.movesDone = move < 0;
+    return move;
+  }
+
+  // returns the game the current record starts from, with no moves made
+  Game start() {
+    if (this.kind == GameLog.LAYOUT) {
+      Game game = new Game(new Board(this.rows, this.columns));
+      int cells = this.rows * this.columns;
+      for (int base = 0; base < cells; base += 8) {
+        int packed = this.buffer.get(this.layout + base / 8) & 0xFF;
+        while (packed != 0) {
+          game.addAMine(base + Integer.numberOfTrailingZeros(packed));
+          packed &= packed - 1;
+        }
+      }
+      game.board.countAllMines();
+      return game;
+    }
+    return new Game(this.rows, this.columns, this.mines, this.seed,
+        this.kind == GameLog.SEEDED_SAFE);
+  }
+
+  // plays the rest of the moves of the current game on a new packed board and returns it
+  Game replay() {
+    Game game = this.start();
+    for (long move = this.nextMove(); move >= 0; move = this.nextMove()) {
+      int cell = (int) (move >>> 2);
+      int action = (int) (move & 3);
+      if (action == GameLog.REVEAL) {
+        game.revealCell(cell);
+      }
+      else if (action == GameLog.FLAG) {
+        game.flagCell(cell);
+      }
+      else {
+        game.chordCell(cell);
+      }
+    }
+    return game;
+  }
+}
+
+// examples and tests for recording and replaying games
+class ExamplesGameArchive {
+
+  // tests that varints take one byte per 7 bits
+  void testVarint(Tester t) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    GameLog.writeVarint(bytes, 0);
+    GameLog.writeVarint(bytes, 127);
+    GameLog.writeVarint(bytes, 128);
+    GameLog.writeVarint(bytes, 480 * 4);
+    t.checkExpect(bytes.size(), 1 + 1 + 2 + 2);
+
+    GameArchive archive = new GameArchive(ByteBuffer.wrap(new byte[] { 0x4D, 0x53, 0x57, 0x50,
+        (byte) 0x80, 0x01 }));
+    t.checkExpect(archive.readVarint(), 128L);
+    t.checkConstructorException(new IllegalArgumentException("Not A Game Archive"),
+        "GameArchive", ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 }));
+  }
+
+  // tests that seeded and layout games replay to the same state they were played to
+  void testArchiveReplay(Tester t) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    GameLog log = new GameLog(bytes);
+
+    Game seeded = new Game(16, 30, 99, 8L, true);
+    log.beginSeeded(16, 30, 99, 8L, true);
+    seeded.reveal(8, 15);
+    log.move(GameLog.REVEAL, seeded.board.index(8, 15));
+    seeded.flag(0, 0);
+    log.move(GameLog.FLAG, 0);
+    log.end();
+
+    Game layout = new Game(new Board(3, 3));
+    layout.placeMines(new int[] { 0, 1, 3 });
+    log.beginLayout(layout.board);
+    log.end();
+    log.beginLayout(layout.board);
+    layout.reveal(2, 2);
+    log.move(GameLog.REVEAL, 8);
+    layout.flag(0, 1);
+    log.move(GameLog.FLAG, 1);
+    layout.chord(1, 2);
+    log.move(GameLog.CHORD, 5);
+    log.end();
+
+    GameArchive archive = new GameArchive(ByteBuffer.wrap(bytes.toByteArray()));
+    t.checkExpect(archive.next(), true);
+    Game first = archive.replay();
+    t.checkExpect(((Board) first.board).mineBits, ((Board) seeded.board).mineBits);
+    t.checkExpect(((Board) first.board).revealedBits, ((Board) seeded.board).revealedBits);
+    t.checkExpect(first.board.isFlagged(0), true);
+    t.checkExpect(first.safeRemaining, seeded.safeRemaining);
+
+    t.checkExpect(archive.next(), true);
+    t.checkExpect(archive.kind, GameLog.LAYOUT);
+    t.checkExpect(archive.next(), true);
+    Game third = archive.replay();
+    t.checkExpect(((Board) third.board).mineBits, ((Board) layout.board).mineBits);
+    t.checkExpect(((Board) third.board).revealedBits, ((Board) layout.board).revealedBits);
+    t.checkExpect(third.safeRemaining, 1);
+    t.checkExpect(archive.next(), false);
+  }
+
+  // tests reading a corpus through a memory-mapped file, skipping games unread
+  void testArchiveMapped(Tester t) throws IOException {
+    Path file = Files.createTempFile("games", ".bin");
+    try (OutputStream out = Files.newOutputStream(file)) {
+      GameLog log = new GameLog(out);
+      for (int g = 0; g < 1000; g++) {
+        log.beginSeeded(9, 9, 10, g, true);
+        for (int cell = 0; cell < 81; cell += 9) {
+          log.move(GameLog.REVEAL, cell);
+        }
+        log.end();
+      }
+    }
+    GameArchive archive = GameArchive.open(file);
+    int games = 0;
+    int moves = 0;
+    while (archive.next()) {
+      games++;
+      if (games % 2 == 0) {
+        for (long move = archive.nextMove(); move >= 0; move = archive.nextMove()) {
+          moves++;
+        }
+      }
+    }
+    t.checkExpect(Files.size(file), 4L + 1000 * 27);
+    Files.delete(file);
+    t.checkExpect(games, 1000);
+    t.checkExpect(moves, 500 * 9);
+  }
+}
@@ -0,0 +1,344 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tester.Tester;
+
+// one game hosted by a GameServer, with the time it was last used
+class Session {
+  Game game;
+  volatile long lastUsed;
+
+  Session(Game game, long now) {
+    this.game = game;
+    this.lastUsed = now;
+  }
+}
+
+// Serves many independent headless games over a line-based protocol on a local TCP port.
+// Every request is one line and gets one line back, "OK ..." or "ERR <message>":
+//   NEW rows columns mines [seed]   starts a first-click-safe game: OK <id>
+//   REVEAL id row column            OK <cells revealed> <status>
+//   FLAG id row column              OK <flagged> <status>
+//   CHORD id row column             OK <cells revealed> <status>
+//   STATE id                        OK <status> <rows> <columns> <cells>, the cells row by
+//                                   row: # covered, F flagged, * mine, 0-8 numbers
+//   END id                          ends the game: OK
+//   QUIT                            closes the connection
+// Each connection runs on its own virtual thread when the runtime has them (Java 21 and
+// later) and on a pooled platform thread otherwise. Sessions live in a concurrent map,
+// moves on one session are serialized on it, and sessions idle for longer than a given
+// time are evicted by a background sweep
+class GameServer {
+  // largest number of rows or columns of a hosted game
+  static final int MAX_SIDE = 1000;
+
+  ConcurrentHashMap<Long, Session> sessions;
+  AtomicLong nextId;
+  long idleMillis;
+  ServerSocket socket;
+  ExecutorService connections;
+  ScheduledExecutorService sweeper;
+
+  GameServer(long idleMillis) {
+    this.sessions = new ConcurrentHashMap<Long, Session>();
+    this.nextId = new AtomicLong(1);
+    this.idleMillis = idleMillis;
+    this.socket = null;
+    this.connections = null;
+    this.sweeper = null;
+  }
+
+  // returns an executor that starts a virtual thread per task if the runtime supports
+  // them, or a cached pool of platform threads if it doesn't
+  static ExecutorService threadPerTask() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    }
+    catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  // starts listening on the given port of the loopback address (0 picks a free port) and
+  // returns the port
+  int start(int port) throws IOException {
+    this.socket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+    this.connections = GameServer.threadPerTask();
+    this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "session-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long period = Math.max(this.idleMillis / 4, 1);
+    this.sweeper.scheduleAtFixedRate(() -> this.evictIdle(System.currentTimeMillis()),
+        period, period, TimeUnit.MILLISECONDS);
+    Thread acceptor = new Thread(this::accept, "session-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+    return this.socket.getLocalPort();
+  }
+
+  // accepts connections until the server is closed
+  void accept() {
+    try {
+      while (true) {
+        Socket client = this.socket.accept();
+        this.connections.execute(() -> this.serve(client));
+      }
+    }
+    catch (SocketException e) {
+      // the server socket was closed
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // answers the requests of one connection until it sends QUIT or closes
+  void serve(Socket client) {
+    try (Socket c = client;
+        BufferedReader in = new BufferedReader(
+            new InputStreamReader(c.getInputStream(), StandardCharsets.US_ASCII));
+        PrintWriter out = new PrintWriter(c.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+      for (String line = in.readLine(); line != null && !line.trim().equals("QUIT");
+          line = in.readLine()) {
+        out.println(this.execute(line, System.currentTimeMillis()));
+      }
+    }
+    catch (IOException e) {
+      // the client went away
+    }
+  }
+
+  // stops listening, closes the connections and drops every session
+  void close() throws IOException {
+    this.socket.close();
+    this.connections.shutdownNow();
+    this.sweeper.shutdownNow();
+    this.sessions.clear();
+  }
+
+  // removes the sessions that haven't been used since idleMillis before now
+  void evictIdle(long now) {
+    this.sessions.values().removeIf(s -> now - s.lastUsed > this.idleMillis);
+  }
+
+  // answers one request line at the given time
+  String execute(String line, long now) {
+    String[] words = line.trim().split("\\s+");
+    try {
+      String command = words[0].toUpperCase();
+      if (command.equals("NEW")) {
+        return this.create(words, now);
+      }
+      Session session = this.session(words, now);
+      synchronized (session) {
+        Game game = session.game;
+        if (command.equals("REVEAL")) {
+          int count = game.reveal(this.row(words, game), this.column(words, game));
+          return "OK " + count + " " + game.status();
+        }
+        else if (command.equals("FLAG")) {
+          boolean flagged = game.flag(this.row(words, game), this.column(words, game));
+          return "OK " + flagged + " " + game.status();
+        }
+        else if (command.equals("CHORD")) {
+          int count = game.chord(this.row(words, game), this.column(words, game));
+          return "OK " + count + " " + game.status();
+        }
+        else if (command.equals("STATE")) {
+          return "OK " + game.status() + " " + game.board.rowCount() + " "
+              + game.board.columnCount() + " " + GameServer.cells(game.board);
+        }
+        else if (command.equals("END")) {
+          this.sessions.remove(Long.parseLong(words[1]));
+          return "OK";
+        }
+      }
+      return "ERR Unknown Command";
+    }
+    catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      return "ERR " + (e.getMessage() == null ? "Invalid Request" : e.getMessage());
+    }
+  }
+
+  // starts a game from a NEW request and returns its id
+  String create(String[] words, long now) {
+    Utils u = new Utils();
+    int rows = u.checkRange(this.number(words, 1), 0, MAX_SIDE, "Invalid Number of Rows");
+    int columns = u.checkRange(this.number(words, 2), 0, MAX_SIDE,
+        "Invalid Number of Columns");
+    int mines = u.checkRange(this.number(words, 3), 0, rows * columns - 1,
+        "Invalid Number of Mines");
+    long seed = words.length > 4 ? Long.parseLong(words[4]) : System.nanoTime();
+    long id = this.nextId.getAndIncrement();
+    this.sessions.put(id, new Session(new Game(rows, columns, mines, seed, true), now));
+    return "OK " + id;
+  }
+
+  // returns the session named by the second word of a request, marking it used
+  Session session(String[] words, long now) {
+    if (words.length < 2) {
+      throw new IllegalArgumentException("Missing Session");
+    }
+    Session session = this.sessions.get(Long.parseLong(words[1]));
+    if (session == null) {
+      throw new IllegalArgumentException("Unknown Session");
+    }
+    session.lastUsed = now;
+    return session;
+  }
+
+  // returns the number at the given position of a request
+  int number(String[] words, int position) {
+    if (position >= words.length) {
+      throw new IllegalArgumentException("Missing Argument");
+    }
+    return Integer.parseInt(words[position]);
+  }
+
+  // returns the row named by the third word of a move request, checking it is on the
+  // board of the given game
+  int row(String[] words, Game game) {
+    return new Utils().checkRange(this.number(words, 2), -1, game.board.rowCount() - 1,
+        "Invalid Row");
+  }
+
+  // returns the column named by the fourth word of a move request, checking it is on the
+  // board of the given game
+  int column(String[] words, Game game) {
+    return new Utils().checkRange(this.number(words, 3), -1, game.board.columnCount() - 1,
+        "Invalid Column");
+  }
+
+  // returns the cells of the given board as the players see them, row by row
+  static String cells(IBoard board) {
+    StringBuilder text = new StringBuilder(board.cellCount());
+    for (int i = 0; i < board.cellCount(); i++) {
+      if (board.isFlagged(i)) {
+        text.append('F');
+      }
+      else if (!board.isRevealed(i)) {
+        text.append('#');
+      }
+      else if (board.containsMine(i)) {
+        text.append('*');
+      }
+      else {
+        text.append((char) ('0' + board.numMines(i)));
+      }
+    }
+    return text.toString();
+  }
+
+  // runs a server on the port given as the first argument (5555 by default)
+  public static void main(String[] args) throws IOException, InterruptedException {
+    GameServer server = new GameServer(TimeUnit.MINUTES.toMillis(30));
+    int port = server.start(args.length > 0 ? Integer.parseInt(args[0]) : 5555);
+    System.out.println("serving games on localhost:" + port);
+    Thread.currentThread().join();
+  }
+}
+
+// examples and tests for the game server
+class ExamplesGameServer {
+
+  // tests the protocol without a socket
+  void testServerProtocol(Tester t) {
+    GameServer server = new GameServer(1000);
+    t.checkExpect(server.execute("NEW 3 3 1 5", 0), "OK 1");
+    t.checkExpect(server.execute("STATE 1", 0), "OK PLAYING 3 3 #########");
+    t.checkExpect(server.execute("FLAG 1 2 2", 0), "OK true PLAYING");
+    t.checkExpect(server.execute("STATE 1", 0), "OK PLAYING 3 3 ########F");
+    t.checkExpect(server.execute("FLAG 1 2 2", 0), "OK false PLAYING");
+    t.checkExpect(server.execute("REVEAL 1 1 1", 0), "OK 1 PLAYING");
+    t.checkExpect(server.execute("STATE 1", 0), "OK PLAYING 3 3 ####1####");
+
+    t.checkExpect(server.execute("NEW 3 3 9", 0), "ERR Invalid Number of Mines");
+    t.checkExpect(server.execute("NEW 3 x 1", 0), "ERR For input string: \"x\"");
+    t.checkExpect(server.execute("REVEAL 7 0 0", 0), "ERR Unknown Session");
+    t.checkExpect(server.execute("REVEAL 1", 0), "ERR Missing Argument");
+    t.checkExpect(server.execute("JUMP 1", 0), "ERR Unknown Command");
+    t.checkExpect(server.execute("END 1", 0), "OK");
+    t.checkExpect(server.sessions.isEmpty(), true);
+  }
+
+  // tests that moves off the board are refused and leave the session untouched
+  void testServerOffBoard(Tester t) {
+    GameServer server = new GameServer(1000);
+    server.execute("NEW 3 3 1 5", 0);
+    t.checkExpect(server.execute("FLAG 1 0 5", 0), "ERR Invalid Column");
+    t.checkExpect(server.execute("FLAG 1 0 3", 0), "ERR Invalid Column");
+    t.checkExpect(server.execute("REVEAL 1 1 -1", 0), "ERR Invalid Column");
+    t.checkExpect(server.execute("FLAG 1 5 5", 0), "ERR Invalid Row");
+    t.checkExpect(server.execute("REVEAL 1 3 0", 0), "ERR Invalid Row");
+    t.checkExpect(server.execute("CHORD 1 -1 0", 0), "ERR Invalid Row");
+    t.checkExpect(server.execute("STATE 1", 0), "OK PLAYING 3 3 #########");
+    t.checkExpect(server.execute("FLAG 1 2 2", 0), "OK true PLAYING");
+    t.checkExpect(server.execute("STATE 1", 0), "OK PLAYING 3 3 ########F");
+    t.checkExpect(server.execute("END 1", 0), "OK");
+    t.checkExpect(server.sessions.isEmpty(), true);
+  }
+
+  // tests that only sessions that have been idle too long are evicted
+  void testServerEviction(Tester t) {
+    GameServer server = new GameServer(1000);
+    server.execute("NEW 9 9 10 1", 0);
+    server.execute("NEW 9 9 10 2", 0);
+    server.execute("REVEAL 2 4 4", 800);
+    server.evictIdle(1500);
+    t.checkExpect(server.sessions.containsKey(1L), false);
+    t.checkExpect(server.sessions.containsKey(2L), true);
+  }
+
+  // tests many clients playing their own games over local sockets at once
+  void testServerSockets(Tester t) throws Exception {
+    GameServer server = new GameServer(60000);
+    int port = server.start(0);
+    Thread[] clients = new Thread[16];
+    String[] answers = new String[clients.length];
+    for (int k = 0; k < clients.length; k++) {
+      int client = k;
+      clients[k] = new Thread(() -> {
+        try (Socket s = new Socket(InetAddress.getLoopbackAddress(), port);
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(),
+                StandardCharsets.US_ASCII));
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true,
+                StandardCharsets.US_ASCII)) {
+          out.println("NEW 16 30 99 " + client);
+          String id = in.readLine().substring(3);
+          out.println("REVEAL " + id + " 8 15");
+          answers[client] = in.readLine();
+          out.println("QUIT");
+        }
+        catch (IOException e) {
+          answers[client] = e.toString();
+        }
+      });
+      clients[k].start();
+    }
+    boolean played = true;
+    for (int k = 0; k < clients.length; k++) {
+      clients[k].join();
+      played = played && answers[k].startsWith("OK ") && answers[k].endsWith(" PLAYING");
+    }
+    t.checkExpect(played, true);
+    t.checkExpect(server.sessions.size(), clients.length);
+    server.close();
+  }
+}
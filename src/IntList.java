@@ -0,0 +1,52 @@
+import java.util.Arrays;
+
+// a growable list of primitive ints, used to hand cell indices between the board,
+// the game and the renderer without boxing them
+class IntList {
+  int[] items;
+  int size;
+
+  IntList() {
+    this(16);
+  }
+
+  IntList(int capacity) {
+    this.items = new int[Math.max(capacity, 1)];
+    this.size = 0;
+  }
+
+  // adds the given value to the end of this list
+  void add(int value) {
+    if (this.size == this.items.length) {
+      this.items = Arrays.copyOf(this.items, this.items.length * 2);
+    }
+    this.items[this.size] = value;
+    this.size++;
+  }
+
+  // returns the value at index i
+  int get(int i) {
+    return this.items[i];
+  }
+
+  // removes and returns the last value in this list
+  int pop() {
+    this.size--;
+    return this.items[this.size];
+  }
+
+  // checks if this list has no values
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // removes every value from this list, keeping its capacity
+  void clear() {
+    this.size = 0;
+  }
+
+  // returns a copy of the values in this list
+  int[] toArray() {
+    return Arrays.copyOf(this.items, this.size);
+  }
+}
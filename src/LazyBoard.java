@@ -0,0 +1,289 @@
+import java.util.Random;
+
+import tester.Tester;
+
+// Represents a Minesweeper board whose adjacent mine counts are worked out only when they
+// are needed. Mines, revealed cells and flagged cells are bit sets as in Board, but
+// countAllMines does nothing: the count of a cell is computed from the mine bits of its
+// neighbours the first time it is asked for, by a reveal or by anyone reading it, and is
+// kept in a cache of four bits a cell, holding the count plus one, so 0 marks a cell not
+// counted yet. Making a board then costs allocating zeroed arrays and placing its mines,
+// and a short game on a huge board only ever counts the cells near the ones it opened.
+// Adding a mine forgets the counts of its neighbours, once any have been worked out, so
+// the cache is never stale
+class LazyBoard implements IBoard {
+  int rows;
+  int columns;
+  int size;
+  int mines;
+  long[] mineBits;
+  long[] revealedBits;
+  long[] flaggedBits;
+  // the counts worked out so far, sixteen cells to a long, and whether there are any
+  long[] counts;
+  boolean anyCounted;
+  // the stack of the flood fill, kept between reveals
+  IntList stack;
+
+  LazyBoard(int rows, int columns) {
+    this.rows = new Utils().checkRange(rows, 0, Board.MAX_CELLS, "Invalid Number of Rows");
+    this.columns = new Utils().checkRange(columns, 0, Board.MAX_CELLS / this.rows,
+        "Invalid Number of Columns");
+    this.size = this.rows * this.columns;
+    this.mines = 0;
+    this.mineBits = new long[Board.words(this.size)];
+    this.revealedBits = new long[Board.words(this.size)];
+    this.flaggedBits = new long[Board.words(this.size)];
+    this.counts = new long[(this.size + 15) >>> 4];
+    this.anyCounted = false;
+    this.stack = new IntList();
+  }
+
+  // returns the number of rows on the board
+  public int rowCount() {
+    return this.rows;
+  }
+
+  // returns the number of columns on the board
+  public int columnCount() {
+    return this.columns;
+  }
+
+  // returns the number of cells on the board
+  public int cellCount() {
+    return this.size;
+  }
+
+  // returns the number of mines on the board
+  public int mineCount() {
+    return this.mines;
+  }
+
+  // returns the index of the cell at the given row and column
+  public int index(int row, int column) {
+    return row * this.columns + column;
+  }
+
+  // checks if the cell at index i contains a mine
+  public boolean containsMine(int i) {
+    return Board.getBit(this.mineBits, i);
+  }
+
+  // checks if the cell at index i is revealed
+  public boolean isRevealed(int i) {
+    return Board.getBit(this.revealedBits, i);
+  }
+
+  // checks if the cell at index i is flagged
+  public boolean isFlagged(int i) {
+    return Board.getBit(this.flaggedBits, i);
+  }
+
+  // checks if the count of the cell at index i has been worked out
+  boolean counted(int i) {
+    return ((this.counts[i >>> 4] >>> ((i & 15) << 2)) & 0xF) != 0;
+  }
+
+  // returns the number of mines adjacent to the cell at index i, counting them and
+  // caching the count the first time it is asked for
+  public int numMines(int i) {
+    int shift = (i & 15) << 2;
+    long cached = (this.counts[i >>> 4] >>> shift) & 0xF;
+    if (cached == 0) {
+      int row = i / this.columns;
+      int column = i % this.columns;
+      cached = 1;
+      for (int k = 0; k < 8; k++) {
+        int r = row + Board.NEIGHBOR_ROWS[k];
+        int c = column + Board.NEIGHBOR_COLUMNS[k];
+        if (r >= 0 && r < this.rows && c >= 0 && c < this.columns
+            && Board.getBit(this.mineBits, r * this.columns + c)) {
+          cached++;
+        }
+      }
+      this.counts[i >>> 4] |= cached << shift;
+      this.anyCounted = true;
+    }
+    return (int) cached - 1;
+  }
+
+  // writes the indices of the neighbours of the cell at index i into out and returns
+  // how many there are; out must hold at least 8 ints
+  public int neighbors(int i, int[] out) {
+    int row = i / this.columns;
+    int column = i % this.columns;
+    int count = 0;
+    for (int k = 0; k < 8; k++) {
+      int r = row + Board.NEIGHBOR_ROWS[k];
+      int c = column + Board.NEIGHBOR_COLUMNS[k];
+      if (r >= 0 && r < this.rows && c >= 0 && c < this.columns) {
+        out[count] = r * this.columns + c;
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // adds a mine to the cell at index i if it doesn't already contain a mine, forgetting
+  // the counts of its neighbours if any have been worked out
+  public boolean addAMine(int i) {
+    if (this.containsMine(i)) {
+      return false;
+    }
+    Board.setBit(this.mineBits, i);
+    this.mines++;
+    if (!this.anyCounted) {
+      return true;
+    }
+    int row = i / this.columns;
+    int column = i % this.columns;
+    for (int k = 0; k < 8; k++) {
+      int r = row + Board.NEIGHBOR_ROWS[k];
+      int c = column + Board.NEIGHBOR_COLUMNS[k];
+      if (r >= 0 && r < this.rows && c >= 0 && c < this.columns) {
+        int n = r * this.columns + c;
+        this.counts[n >>> 4] &= ~(0xFL << ((n & 15) << 2));
+      }
+    }
+    return true;
+  }
+
+  // does nothing: counts are worked out when they are first needed
+  public void countAllMines() {
+    // nothing to do
+  }
+
+  // checks if the cell at index i is neither revealed nor flagged
+  boolean isHidden(int i) {
+    return ((this.revealedBits[i >>> 6] | this.flaggedBits[i >>> 6]) & (1L << i)) == 0;
+  }
+
+  // reveals the cell at index i if it isn't flagged or revealed, and flood-fills
+  // outwards from it through cells with no adjacent mines, counting the cells it reaches
+  // as it goes. Adds the newly revealed cells to delta when it isn't null and returns
+  // how many there were
+  public int reveal(int i, IntList delta) {
+    if (!this.isHidden(i)) {
+      return 0;
+    }
+    Board.setBit(this.revealedBits, i);
+    if (delta != null) {
+      delta.add(i);
+    }
+    if (this.containsMine(i) || this.numMines(i) != 0) {
+      return 1;
+    }
+
+    int count = 1;
+    this.stack.clear();
+    this.stack.add(i);
+    while (!this.stack.isEmpty()) {
+      int q = this.stack.pop();
+      int row = q / this.columns;
+      int column = q % this.columns;
+      for (int k = 0; k < 8; k++) {
+        int r = row + Board.NEIGHBOR_ROWS[k];
+        int c = column + Board.NEIGHBOR_COLUMNS[k];
+        int n = r * this.columns + c;
+        if (r >= 0 && r < this.rows && c >= 0 && c < this.columns && this.isHidden(n)) {
+          Board.setBit(this.revealedBits, n);
+          count++;
+          if (delta != null) {
+            delta.add(n);
+          }
+          if (this.numMines(n) == 0) {
+            this.stack.add(n);
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  // flags or unflags the cell at index i based on the current flagged state
+  public void flagCell(int i) {
+    this.flaggedBits[i >>> 6] ^= 1L << i;
+  }
+
+  // covers or uncovers the cell at index i alone, without flood-filling
+  public void setRevealed(int i, boolean revealed) {
+    if (revealed) {
+      Board.setBit(this.revealedBits, i);
+    }
+    else {
+      Board.clearBit(this.revealedBits, i);
+    }
+  }
+
+  // checks if the cell at index i satisfies the losing conditions
+  public boolean loseCondition(int i) {
+    return this.containsMine(i) && this.isRevealed(i);
+  }
+}
+
+// examples and tests for the lazily counted board
+class ExamplesLazyBoard {
+
+  // tests that counts are only worked out when asked for, and forgotten by new mines
+  void testLazyCounts(Tester t) {
+    LazyBoard b = new LazyBoard(3, 3);
+    b.addAMine(0);
+    b.addAMine(1);
+    b.countAllMines();
+    t.checkExpect(b.counted(4), false);
+    t.checkExpect(b.numMines(4), 2);
+    t.checkExpect(b.counted(4), true);
+    t.checkExpect(b.counted(8), false);
+    b.addAMine(3);
+    t.checkExpect(b.counted(4), false);
+    t.checkExpect(b.numMines(4), 3);
+    t.checkExpect(b.numMines(8), 0);
+    t.checkConstructorException(new IllegalArgumentException("Invalid Number of Rows"),
+        "LazyBoard", 0, 3);
+  }
+
+  // tests that play on a lazy board matches play on a packed board
+  void testLazyMatchesBoard(Tester t) {
+    Random rand = new Random(23);
+    boolean same = true;
+    for (int round = 0; round < 30; round++) {
+      int rows = 1 + rand.nextInt(40);
+      int columns = 1 + rand.nextInt(40);
+      long seed = rand.nextLong();
+      int mines = rand.nextInt(rows * columns / 5 + 1);
+      Game packed = new Game(new Board(rows, columns), mines, seed, false);
+      Game lazy = new Game(new LazyBoard(rows, columns), mines, seed, false);
+      for (int move = 0; move < 6; move++) {
+        int row = rand.nextInt(rows);
+        int column = rand.nextInt(columns);
+        if (rand.nextInt(3) == 0) {
+          same = same && packed.flag(row, column) == lazy.flag(row, column);
+        }
+        else {
+          same = same && packed.reveal(row, column) == lazy.reveal(row, column)
+              && packed.delta.size == lazy.delta.size;
+        }
+      }
+      for (int i = 0; i < rows * columns; i++) {
+        same = same && packed.board.isRevealed(i) == lazy.board.isRevealed(i)
+            && packed.board.numMines(i) == lazy.board.numMines(i);
+      }
+      same = same && packed.status() == lazy.status();
+    }
+    t.checkExpect(same, true);
+  }
+
+  // tests that a first move on a huge board only counts the cells near it
+  void testLazyLargeBoard(Tester t) {
+    Game g = new Game(new LazyBoard(4000, 4000), 4000 * 4000 / 5, 7L, true);
+    LazyBoard b = (LazyBoard) g.board;
+    t.checkExpect(b.counted(2000 * 4000 + 2000), false);
+    t.checkExpect(g.reveal(2000, 2000) > 1, true);
+    int counted = 0;
+    for (int i = 0; i < b.size; i++) {
+      counted += b.counted(i) ? 1 : 0;
+    }
+    t.checkExpect(counted < 1000, true);
+    t.checkExpect(g.status(), GameStatus.PLAYING);
+  }
+}
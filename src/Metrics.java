@@ -0,0 +1,369 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import javalib.worldimages.Posn;
+import tester.Tester;
+
+// A histogram of non-negative values in power-of-two buckets: bucket k counts the values
+// below 2^k and at least 2^(k-1). Every counter is a LongAdder, so threads recording at
+// the same time never wait on each other
+class Histogram {
+  LongAdder[] buckets;
+  LongAdder sum;
+  LongAccumulator max;
+
+  Histogram() {
+    this.buckets = new LongAdder[65];
+    for (int k = 0; k < this.buckets.length; k++) {
+      this.buckets[k] = new LongAdder();
+    }
+    this.sum = new LongAdder();
+    this.max = new LongAccumulator(Math::max, 0);
+  }
+
+  // records the given value
+  void record(long value) {
+    long v = Math.max(value, 0);
+    this.buckets[64 - Long.numberOfLeadingZeros(v)].increment();
+    this.sum.add(v);
+    this.max.accumulate(v);
+  }
+
+  // returns the values recorded so far
+  HistogramSnapshot snapshot() {
+    long[] counts = new long[this.buckets.length];
+    for (int k = 0; k < counts.length; k++) {
+      counts[k] = this.buckets[k].sum();
+    }
+    return new HistogramSnapshot(counts, this.sum.sum(), this.max.get());
+  }
+
+  // clears the histogram
+  void reset() {
+    for (LongAdder bucket : this.buckets) {
+      bucket.reset();
+    }
+    this.sum.reset();
+    this.max.reset();
+  }
+}
+
+// the values recorded by a Histogram at one point in time
+class HistogramSnapshot {
+  long[] buckets;
+  long count;
+  long sum;
+  long max;
+
+  HistogramSnapshot(long[] buckets, long sum, long max) {
+    this.buckets = buckets;
+    this.sum = sum;
+    this.max = max;
+    this.count = 0;
+    for (long b : buckets) {
+      this.count += b;
+    }
+  }
+
+  // returns the mean of the values, or 0 if there are none
+  double mean() {
+    return this.count == 0 ? 0 : (double) this.sum / this.count;
+  }
+
+  // returns an upper bound of the given percentile of the values: the top of the bucket
+  // it falls in, or the largest value if that is smaller
+  long percentile(double p) {
+    long rank = (long) Math.ceil(this.count * p / 100);
+    long seen = 0;
+    for (int k = 0; k < this.buckets.length; k++) {
+      seen += this.buckets[k];
+      if (seen >= rank && seen > 0) {
+        return Math.min(k == 64 ? Long.MAX_VALUE : (1L << k) - 1, this.max);
+      }
+    }
+    return 0;
+  }
+}
+
+// Records where time goes during play: how long clicks, reveals, board generation and
+// frames take, how many cells reveals open and frames draw, and how many bytes a click
+// allocates. Recording is a few LongAdder updates with no locks, and stops when metrics
+// are disabled, which costs one volatile read per site. Starting the JVM with
+// -Dminesweeper.metrics=off disables them for good. The metrics can be read with
+// snapshot() or over JMX once register() has been called
+class Metrics {
+  // whether metrics can be turned on at all
+  static final boolean AVAILABLE = !"off".equals(System.getProperty("minesweeper.metrics"));
+  static volatile boolean enabled = AVAILABLE;
+
+  // nanoseconds to handle a click, and bytes allocated while doing it
+  static final Histogram CLICK_NANOS = new Histogram();
+  static final Histogram CLICK_BYTES = new Histogram();
+  // nanoseconds to reveal a cell, and cells opened by the reveal
+  static final Histogram REVEAL_NANOS = new Histogram();
+  static final Histogram REVEAL_CELLS = new Histogram();
+  // nanoseconds to place the mines of a board and count them
+  static final Histogram GENERATION_NANOS = new Histogram();
+  // nanoseconds to draw a frame, and cells drawn in it
+  static final Histogram FRAME_NANOS = new Histogram();
+  static final Histogram FRAME_CELLS = new Histogram();
+
+  // the thread allocation counter of the JVM, or null if it doesn't have one
+  static final com.sun.management.ThreadMXBean THREADS = Metrics.allocationCounter();
+
+  // name the metrics are registered under in JMX
+  static final String NAME = "minesweeper:type=Metrics";
+
+  // returns the thread allocation counter of the JVM, or null if it doesn't have one
+  static com.sun.management.ThreadMXBean allocationCounter() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+      if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+        return counter;
+      }
+    }
+    return null;
+  }
+
+  // starts or stops recording, unless metrics were turned off when the JVM started
+  static void setEnabled(boolean on) {
+    Metrics.enabled = on && AVAILABLE;
+  }
+
+  // returns the time to pass to one of the record methods when the timed work is done,
+  // or 0 if metrics are disabled
+  static long start() {
+    return Metrics.enabled ? System.nanoTime() : 0;
+  }
+
+  // returns the bytes allocated by this thread so far, or 0 if metrics are disabled or
+  // the JVM doesn't count them
+  static long allocated() {
+    return Metrics.enabled && THREADS != null
+        ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+  }
+
+  // records the time since start in the given histogram, unless start is 0
+  static void recordTime(Histogram histogram, long start) {
+    if (start != 0) {
+      histogram.record(System.nanoTime() - start);
+    }
+  }
+
+  // records a click that started at the given time, with the given bytes allocated
+  static void recordClick(long start, long allocated) {
+    if (start != 0) {
+      CLICK_NANOS.record(System.nanoTime() - start);
+      if (allocated != 0) {
+        CLICK_BYTES.record(Metrics.allocated() - allocated);
+      }
+    }
+  }
+
+  // records a reveal that started at the given time and opened the given cells
+  static void recordReveal(long start, int cells) {
+    if (start != 0) {
+      REVEAL_NANOS.record(System.nanoTime() - start);
+      REVEAL_CELLS.record(cells);
+    }
+  }
+
+  // records a frame that started at the given time and drew the given cells
+  static void recordFrame(long start, int cells) {
+    if (start != 0) {
+      FRAME_NANOS.record(System.nanoTime() - start);
+      FRAME_CELLS.record(cells);
+    }
+  }
+
+  // returns the metrics recorded so far, by name
+  static LinkedHashMap<String, HistogramSnapshot> snapshot() {
+    LinkedHashMap<String, HistogramSnapshot> all = new LinkedHashMap<String, HistogramSnapshot>();
+    all.put("click.nanos", CLICK_NANOS.snapshot());
+    all.put("click.bytes", CLICK_BYTES.snapshot());
+    all.put("reveal.nanos", REVEAL_NANOS.snapshot());
+    all.put("reveal.cells", REVEAL_CELLS.snapshot());
+    all.put("generation.nanos", GENERATION_NANOS.snapshot());
+    all.put("frame.nanos", FRAME_NANOS.snapshot());
+    all.put("frame.cells", FRAME_CELLS.snapshot());
+    return all;
+  }
+
+  // clears every metric
+  static void reset() {
+    for (Histogram h : new Histogram[] { CLICK_NANOS, CLICK_BYTES, REVEAL_NANOS, REVEAL_CELLS,
+        GENERATION_NANOS, FRAME_NANOS, FRAME_CELLS }) {
+      h.reset();
+    }
+  }
+
+  // registers the metrics with the platform MBean server, if they aren't already, and
+  // returns the name they are registered under
+  static ObjectName register() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(NAME);
+    synchronized (Metrics.class) {
+      if (!server.isRegistered(name)) {
+        server.registerMBean(new MetricsBean(), name);
+      }
+    }
+    return name;
+  }
+}
+
+// the JMX view of Metrics
+class MetricsBean implements MinesweeperMetricsMXBean {
+
+  // returns whether metrics are being recorded
+  public boolean isEnabled() {
+    return Metrics.enabled;
+  }
+
+  // starts or stops recording metrics
+  public void setEnabled(boolean enabled) {
+    Metrics.setEnabled(enabled);
+  }
+
+  // returns the number of clicks handled
+  public long getClickCount() {
+    return Metrics.CLICK_NANOS.snapshot().count;
+  }
+
+  // returns the mean time to handle a click
+  public double getClickMeanMicros() {
+    return Metrics.CLICK_NANOS.snapshot().mean() / 1000;
+  }
+
+  // returns the 99th percentile of the time to handle a click
+  public double getClickP99Micros() {
+    return Metrics.CLICK_NANOS.snapshot().percentile(99) / 1000.0;
+  }
+
+  // returns the mean bytes allocated while handling a click, or 0 if unknown
+  public double getClickMeanBytes() {
+    return Metrics.CLICK_BYTES.snapshot().mean();
+  }
+
+  // returns the number of reveals
+  public long getRevealCount() {
+    return Metrics.REVEAL_CELLS.snapshot().count;
+  }
+
+  // returns the mean number of cells opened by a reveal
+  public double getRevealMeanCells() {
+    return Metrics.REVEAL_CELLS.snapshot().mean();
+  }
+
+  // returns the largest number of cells opened by one reveal
+  public long getRevealMaxCells() {
+    return Metrics.REVEAL_CELLS.snapshot().max;
+  }
+
+  // returns the 99th percentile of the time to reveal a cell
+  public double getRevealP99Micros() {
+    return Metrics.REVEAL_NANOS.snapshot().percentile(99) / 1000.0;
+  }
+
+  // returns the number of boards generated
+  public long getGenerationCount() {
+    return Metrics.GENERATION_NANOS.snapshot().count;
+  }
+
+  // returns the mean time to generate a board
+  public double getGenerationMeanMicros() {
+    return Metrics.GENERATION_NANOS.snapshot().mean() / 1000;
+  }
+
+  // returns the number of frames drawn
+  public long getFrameCount() {
+    return Metrics.FRAME_CELLS.snapshot().count;
+  }
+
+  // returns the mean time to draw a frame
+  public double getFrameMeanMicros() {
+    return Metrics.FRAME_NANOS.snapshot().mean() / 1000;
+  }
+
+  // returns the mean number of cells drawn per frame
+  public double getFrameMeanCells() {
+    return Metrics.FRAME_CELLS.snapshot().mean();
+  }
+
+  // clears every metric
+  public void reset() {
+    Metrics.reset();
+  }
+}
+
+// examples and tests for the metrics
+class ExamplesMetrics {
+
+  // tests the buckets, mean and percentiles of a histogram
+  void testHistogram(Tester t) {
+    Histogram h = new Histogram();
+    for (long v = 1; v <= 100; v++) {
+      h.record(v);
+    }
+    h.record(0);
+    HistogramSnapshot s = h.snapshot();
+    t.checkExpect(s.count, 101L);
+    t.checkExpect(s.sum, 5050L);
+    t.checkExpect(s.max, 100L);
+    t.checkExpect(s.buckets[0], 1L);
+    t.checkExpect(s.buckets[7], 37L);
+    t.checkExpect(s.percentile(50), 63L);
+    t.checkExpect(s.percentile(100), 100L);
+    h.reset();
+    t.checkExpect(h.snapshot().count, 0L);
+  }
+
+  // tests that playing records clicks, reveals, generation and frames, and that nothing
+  // is recorded while metrics are disabled
+  void testMetricsRecorded(Tester t) {
+    Metrics.setEnabled(true);
+    Metrics.reset();
+    Minesweeper m = new Minesweeper(10, 10, 20, 5L, false);
+    m.makeScene();
+    m.onMouseClicked(new Posn(10, 10), "RightButton");
+    m.onMouseClicked(new Posn(10, 10), "RightButton");
+    m.makeScene();
+
+    LinkedHashMap<String, HistogramSnapshot> s = Metrics.snapshot();
+    t.checkExpect(s.get("generation.nanos").count, 1L);
+    t.checkExpect(s.get("click.nanos").count, 2L);
+    t.checkExpect(s.get("frame.cells").count, 2L);
+    t.checkExpect(s.get("frame.cells").sum, 102L);
+
+    Metrics.setEnabled(false);
+    new Minesweeper(10, 10, 20, 6L, false).onMouseClicked(new Posn(10, 10), "LeftButton");
+    t.checkExpect(Metrics.snapshot().get("click.nanos").count, 2L);
+    Metrics.setEnabled(true);
+
+    Game g = new Game(16, 30, 99, 1L, true);
+    g.reveal(8, 15);
+    t.checkExpect(Metrics.snapshot().get("reveal.cells").max > 1, true);
+    t.checkExpect(Metrics.snapshot().get("generation.nanos").count, 2L);
+  }
+
+  // tests reading the metrics over JMX
+  void testMetricsJmx(Tester t) throws Exception {
+    Metrics.setEnabled(true);
+    ObjectName name = Metrics.register();
+    t.checkExpect(Metrics.register(), name);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    server.invoke(name, "reset", new Object[0], new String[0]);
+    new Game(9, 9, 10, new Random(4).nextLong(), false).reveal(4, 4);
+    t.checkExpect(server.getAttribute(name, "RevealCount"), 1L);
+    t.checkExpect(server.getAttribute(name, "GenerationCount"), 1L);
+    t.checkExpect(server.getAttribute(name, "Enabled"), true);
+  }
+}
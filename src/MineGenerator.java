@@ -0,0 +1,174 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import tester.Tester;
+
+// Chooses which cells of a board hold mines. Cells are numbered by their flat index
+// (row * columns + column) and the mines are picked with a partial Fisher-Yates shuffle
+// of that range, or Floyd's sampling algorithm when they are dense, so every layout is
+// equally likely, each mine costs one call to the random number generator and the same
+// seed always gives the same layout
+class MineGenerator {
+  Random rand;
+
+  MineGenerator(long seed) {
+    this(new Random(seed));
+  }
+
+  MineGenerator(Random rand) {
+    this.rand = rand;
+  }
+
+  // returns count distinct cell indices chosen uniformly from [0, size)
+  int[] choose(int size, int count) {
+    return this.choose(size, count, new int[0]);
+  }
+
+  // returns count distinct cell indices chosen uniformly from [0, size), never choosing
+  // one of the given excluded indices
+  int[] choose(int size, int count, int[] excluded) {
+    int[] skip = Arrays.stream(excluded).distinct().sorted().toArray();
+    int allowed = size - skip.length;
+    new Utils().checkRange(count, -1, allowed, "Invalid Number of Mines");
+
+    // the excluded indices that fall inside [0, allowed) are replaced by the allowed
+    // indices that fall outside it, which maps [0, allowed) onto the allowed cells
+    HashMap<Integer, Integer> replace = new HashMap<Integer, Integer>();
+    int tail = allowed;
+    int next = Arrays.binarySearch(skip, allowed);
+    next = next < 0 ? -next - 1 : next;
+    for (int e : skip) {
+      if (e >= allowed) {
+        break;
+      }
+      while (next < skip.length && skip[next] == tail) {
+        next++;
+        tail++;
+      }
+      replace.put(e, tail);
+      tail++;
+    }
+
+    int[] chosen = new int[count];
+    if (count > allowed / 64) {
+      this.sampleDense(allowed, chosen);
+    }
+    else {
+      this.shuffleSparse(allowed, chosen);
+    }
+    for (int k = 0; k < count; k++) {
+      chosen[k] = replace.getOrDefault(chosen[k], chosen[k]);
+    }
+    return chosen;
+  }
+
+  // fills chosen with a uniformly random subset of [0, n) using Floyd's sampling
+  // algorithm, remembering the chosen cells in a bitmap; used when mines are more than
+  // a small fraction of the cells, where a map of swapped positions would be too slow
+  void sampleDense(int n, int[] chosen) {
+    long[] taken = new long[Board.words(n)];
+    int k = 0;
+    for (int j = n - chosen.length; j < n; j++) {
+      int t = this.rand.nextInt(j + 1);
+      int picked = Board.getBit(taken, t) ? j : t;
+      Board.setBit(taken, picked);
+      chosen[k] = picked;
+      k++;
+    }
+  }
+
+  // fills chosen with the first chosen.length entries of a Fisher-Yates shuffle of
+  // [0, n), remembering only the positions that have been swapped, so it takes time and
+  // memory proportional to the number of mines rather than the number of cells
+  void shuffleSparse(int n, int[] chosen) {
+    HashMap<Integer, Integer> swapped = new HashMap<Integer, Integer>();
+    for (int k = 0; k < chosen.length; k++) {
+      int j = k + this.rand.nextInt(n - k);
+      int picked = swapped.getOrDefault(j, j);
+      swapped.put(j, swapped.getOrDefault(k, k));
+      chosen[k] = picked;
+    }
+  }
+
+  // returns the index of the cell at the given row and column of a board with the
+  // given dimensions together with the indices of its neighbours
+  static int[] neighborhood(int rows, int columns, int row, int column) {
+    int[] cells = new int[9];
+    int count = 0;
+    for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+      for (int c = Math.max(column - 1, 0); c <= Math.min(column + 1, columns - 1); c++) {
+        cells[count] = r * columns + c;
+        count++;
+      }
+    }
+    return Arrays.copyOf(cells, count);
+  }
+
+  // returns the cells that a first click on the given row and column keeps free of
+  // mines: the clicked cell and its neighbours, or only the clicked cell when the board
+  // is too full to spare its neighbours
+  static int[] safeZone(int rows, int columns, int mines, int row, int column) {
+    int[] around = MineGenerator.neighborhood(rows, columns, row, column);
+    if (rows * columns - around.length >= mines) {
+      return around;
+    }
+    else {
+      return new int[] { row * columns + column };
+    }
+  }
+}
+
+// examples and tests for mine generation
+class ExamplesMineGenerator {
+
+  // tests that chosen cells are distinct, in range and reproducible from a seed
+  void testChoose(Tester t) {
+    int[] a = new MineGenerator(42).choose(100, 30);
+    int[] b = new MineGenerator(42).choose(100, 30);
+    int[] dense = new MineGenerator(42).choose(100, 99);
+
+    t.checkExpect(a, b);
+    t.checkExpect(Arrays.stream(a).distinct().count(), 30L);
+    t.checkExpect(Arrays.stream(a).allMatch(i -> i >= 0 && i < 100), true);
+    t.checkExpect(Arrays.stream(dense).distinct().count(), 99L);
+    t.checkExpect(new MineGenerator(1).choose(5, 5).length, 5);
+    t.checkExpect(new MineGenerator(1).choose(2000000000, 3).length, 3);
+  }
+
+  // tests that excluded cells never receive a mine, even when every other cell does
+  void testChooseExcluded(Tester t) {
+    int[] safe = MineGenerator.neighborhood(10, 10, 0, 0);
+    t.checkExpect(safe, new int[] { 0, 1, 10, 11 });
+    t.checkExpect(MineGenerator.safeZone(3, 3, 8, 1, 1), new int[] { 4 });
+
+    int[] full = new MineGenerator(7).choose(100, 96, safe);
+    int[] sorted = Arrays.stream(full).sorted().toArray();
+    t.checkExpect(sorted.length, 96);
+    t.checkExpect(Arrays.stream(sorted).distinct().count(), 96L);
+    t.checkExpect(Arrays.stream(full).noneMatch(i -> i == 0 || i == 1 || i == 10 || i == 11),
+        true);
+    t.checkExpect(new MineGenerator(7).choose(100, 3, new int[] { 99, 98, 5 }).length, 3);
+
+    t.checkException(new IllegalArgumentException("Invalid Number of Mines"),
+        new MineGenerator(7), "choose", 100, 97, safe);
+  }
+
+  // tests that every cell, including the last row and column, is equally likely to
+  // receive a mine
+  void testChooseUniform(Tester t) {
+    MineGenerator gen = new MineGenerator(3);
+    int[] hits = new int[9];
+    for (int i = 0; i < 90000; i++) {
+      for (int cell : gen.choose(9, 3, new int[] { 4 })) {
+        hits[cell]++;
+      }
+    }
+    t.checkExpect(hits[4], 0);
+    for (int cell = 0; cell < 9; cell++) {
+      if (cell != 4) {
+        t.checkNumRange(hits[cell], 32500, 35000);
+      }
+    }
+  }
+}
@@ -1,6 +1,11 @@
 import java.awt.Color;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Random;
 import java.util.function.Predicate;
 
@@ -48,6 +53,46 @@ interface IUtils {
   // WorldImage that represents a mine
   WorldImage MINE = new CircleImage(15, OutlineMode.SOLID, Color.RED);
 
+  // Colors of the numbers shown on revealed cells, for 1 to 8 adjacent mines
+  List<Color> NUM_COLORS = List.of(Color.BLUE, Color.GREEN, Color.RED, Color.ORANGE,
+      Color.YELLOW, Color.CYAN, Color.PINK, Color.WHITE);
+
+  // TextImages of the numbers shown on revealed cells, for 1 to 8 adjacent mines
+  List<WorldImage> NUM_TEXT = List.of(new TextImage("1", Color.BLUE),
+      new TextImage("2", Color.GREEN), new TextImage("3", Color.RED),
+      new TextImage("4", Color.ORANGE), new TextImage("5", Color.YELLOW),
+      new TextImage("6", Color.CYAN), new TextImage("7", Color.PINK),
+      new TextImage("8", Color.WHITE));
+
+  // The tile atlas: one shared WorldImage for every way a cell can be drawn, built once
+  // so that drawing a cell never allocates an image
+
+  // WorldImage that represents a flagged cell
+  WorldImage CELL_FLAGGED = new OverlayImage(IUtils.FLAG, IUtils.CELL_COVERED);
+
+  // WorldImage that represents a revealed cell with a mine
+  WorldImage CELL_MINE = new OverlayImage(IUtils.MINE, IUtils.CELL_REVEALED);
+
+  // WorldImage that represents the mine that was revealed by the losing click
+  WorldImage CELL_EXPLODED = new OverlayImage(IUtils.MINE,
+      new OverlayImage(
+          new RectangleImage(IUtils.CELL_SIZE - 2, IUtils.CELL_SIZE - 2, OutlineMode.SOLID,
+              new Color(120, 20, 20)),
+          new RectangleImage(IUtils.CELL_SIZE, IUtils.CELL_SIZE, OutlineMode.SOLID,
+              new Color(224, 193, 171))));
+
+  // WorldImages that represent revealed cells without a mine, indexed by their number
+  // of adjacent mines, so index 0 is an empty revealed cell
+  List<WorldImage> CELL_NUMBERS = List.of(IUtils.CELL_REVEALED,
+      new OverlayImage(IUtils.NUM_TEXT.get(0), IUtils.CELL_REVEALED),
+      new OverlayImage(IUtils.NUM_TEXT.get(1), IUtils.CELL_REVEALED),
+      new OverlayImage(IUtils.NUM_TEXT.get(2), IUtils.CELL_REVEALED),
+      new OverlayImage(IUtils.NUM_TEXT.get(3), IUtils.CELL_REVEALED),
+      new OverlayImage(IUtils.NUM_TEXT.get(4), IUtils.CELL_REVEALED),
+      new OverlayImage(IUtils.NUM_TEXT.get(5), IUtils.CELL_REVEALED),
+      new OverlayImage(IUtils.NUM_TEXT.get(6), IUtils.CELL_REVEALED),
+      new OverlayImage(IUtils.NUM_TEXT.get(7), IUtils.CELL_REVEALED));
+
 }
 
 // Utils class that is used to check for constructor exceptions
@@ -72,6 +117,18 @@ class Minesweeper extends World implements IUtils {
   Random randMines;
   ArrayList<ArrayList<Cell>> grid;
   int score;
+  // the rules of the game played on the grid, created by makeGrid
+  Game game;
+  // the board as composed by the last call to makeScene, null before the first frame
+  WorldScene scene;
+  // grid positions of the cells that changed since the last frame
+  IntList dirty;
+  // number of tiles placed over the composed board since it was last built from scratch
+  int overdrawn;
+  // the score shown on the composed board
+  int drawnScore;
+  // the log the input of this world is recorded to, or null
+  ClickLog recording;
 
   Minesweeper(int rows, int columns, int mines) {
     this.rows = new Utils().checkRange(rows, 0, 100, "Invalid Number of Rows");
@@ -81,11 +138,19 @@ class Minesweeper extends World implements IUtils {
     this.randMines = new Random();
     this.grid = new ArrayList<ArrayList<Cell>>();
     this.score = 0;
-
+    this.game = null;
+    this.scene = null;
+    this.dirty = new IntList();
+    this.overdrawn = 0;
+    this.drawnScore = 0;
+    this.recording = null;
+
+    long start = Metrics.start();
     makeGrid();
     addMines();
     findNeighbors();
     countAllMines();
+    Metrics.recordTime(Metrics.GENERATION_NANOS, start);
 
   }
 
@@ -98,42 +163,104 @@ class Minesweeper extends World implements IUtils {
     this.randMines = randMines;
     this.grid = new ArrayList<ArrayList<Cell>>();
     this.score = 0;
+    this.game = null;
+    this.scene = null;
+    this.dirty = new IntList();
+    this.overdrawn = 0;
+    this.drawnScore = 0;
+    this.recording = null;
+  }
+
+  // constructor for a game whose mines are reproducible from the given seed. When
+  // firstClickSafe is set the mines are placed by the first left click, away from the
+  // clicked cell and its neighbours
+  Minesweeper(int rows, int columns, int mines, long seed, boolean firstClickSafe) {
+    this(rows, columns, mines, new Random(seed));
+
+    makeGrid();
+    findNeighbors();
+    if (firstClickSafe) {
+      this.game.deferMines(this.mines, this.randMines);
+    }
+    else {
+      long start = Metrics.start();
+      addMines();
+      countAllMines();
+      Metrics.recordTime(Metrics.GENERATION_NANOS, start);
+    }
   }
 
-  // draws the grid/mines on the background
+  // draws the grid/mines on the background. The composed board is kept between frames
+  // and only the tiles of cells that changed since the last frame are placed on it, so
+  // composing a frame costs as much as the number of changed cells. Painting it does
+  // not: a WorldScene keeps every image placed on it and paints them all each frame, so
+  // the painting costs as much as the cells plus the tiles placed over them since the
+  // scene was composed. The board is composed from scratch on the first frame, when the
+  // score changes, or once the tiles placed over it outnumber the cells, which keeps the
+  // painting within twice the cost of a fresh board
   @Override
   public WorldScene makeScene() {
+    long start = Metrics.start();
 
+    if (this.scene == null || this.drawnScore != this.score
+        || this.overdrawn + this.dirty.size > this.rows * this.columns) {
+      WorldScene w = new WorldScene(columns * IUtils.CELL_SIZE, rows * IUtils.CELL_SIZE);
 
-    WorldScene w = new WorldScene(columns * IUtils.CELL_SIZE, rows * IUtils.CELL_SIZE);
+      w.placeImageXY(new TextImage("Score: " + Integer.toString(this.score), Color.BLACK),
+          IUtils.CELL_SIZE, IUtils.CELL_SIZE);
 
-    w.placeImageXY(new TextImage("Score: " + Integer.toString(this.score), Color.BLACK),
-        IUtils.CELL_SIZE, IUtils.CELL_SIZE);
+      this.drawBoard(w);
+      this.scene = w;
+      this.overdrawn = 0;
+      this.drawnScore = this.score;
+      Metrics.recordFrame(start, this.rows * this.columns);
+    }
+    else {
+      for (int i = 0; i < this.dirty.size; i++) {
+        this.drawTile(this.scene, this.dirty.get(i));
+      }
+      this.overdrawn += this.dirty.size;
+      Metrics.recordFrame(start, this.dirty.size);
+    }
+
+    this.dirty.clear();
+    return this.scene;
 
+  }
 
+  // draws every cell of the grid onto the given scene
+  void drawBoard(WorldScene w) {
     for (int r = 0; r < this.rows; r++) {
       for (int c = 0; c < this.columns; c++) {
-        this.grid.get(r).get(c).drawCell(w, r * IUtils.CELL_SIZE + IUtils.CELL_SIZE / 2,
-            c * IUtils.CELL_SIZE + IUtils.CELL_SIZE / 2);
+        this.drawTile(w, r * this.columns + c);
       }
     }
+  }
 
-    return w;
+  // draws the cell at the given grid position onto the given scene
+  void drawTile(WorldScene w, int position) {
+    int r = position / this.columns;
+    int c = position % this.columns;
+    this.grid.get(r).get(c).drawCell(w, r * IUtils.CELL_SIZE + IUtils.CELL_SIZE / 2,
+        c * IUtils.CELL_SIZE + IUtils.CELL_SIZE / 2);
+  }
 
+  // marks the tiles of the cells at the given grid positions as changed since the last
+  // frame
+  void markDirty(IntList changed) {
+    for (int i = 0; i < changed.size; i++) {
+      this.dirty.add(changed.get(i));
+    }
   }
 
 
 
   // counts the number of mines present in the neighbouring cell of each cell
   public void countAllMines() {
-    for (int r = 0; r < this.rows; r++) {
-      for (int c = 0; c < this.columns; c++) {
-        this.grid.get(r).get(c).countMines();
-      }
-    }
+    this.game.board.countAllMines();
   }
 
-  // Initializes and constructs the game's grid using cells
+  // Initializes and constructs the game's grid using cells, and the game played on it
   public void makeGrid() {
     for (int r = 0; r < this.rows; r++) {
       this.grid.add(new ArrayList<Cell>());
@@ -142,20 +269,20 @@ class Minesweeper extends World implements IUtils {
         this.grid.get(r).add(new Cell());
       }
     }
+    this.game = new Game(new CellBoard(this.grid, this.columns));
+    this.game.startJournal();
   }
 
-  // Randomly places mines within the grid
+  // Randomly places mines within the grid, every cell being equally likely to get one
   public void addMines() {
+    this.placeMines(new MineGenerator(this.randMines).choose(this.rows * this.columns,
+        this.mines));
+  }
 
-    for (int i = 0; i < this.mines; i++) {
-      int row = this.randMines.nextInt(this.rows - 1);
-      int column = this.randMines.nextInt(this.columns - 1);
-
-      Cell currCell = this.grid.get(row).get(column);
-
-      if (!currCell.addAMine()) {
-        i--;
-      }
+  // places a mine in the cell at each of the given grid positions
+  void placeMines(int[] positions) {
+    for (int p : positions) {
+      this.game.addAMine(p);
     }
   }
 
@@ -199,15 +326,22 @@ class Minesweeper extends World implements IUtils {
     }
   }
 
-  // reveals a cell if left-clicked, flags a cell if right clicked, and checks the
-  // win/lost state of the game
+  // reveals a cell if left-clicked, flags a cell if right clicked, chords a revealed
+  // number if middle-clicked, and checks the win/lost state of the game. A chord reveals
+  // all the cells it opens as one move, so its changes are marked for redrawing and the
+  // game is checked once, however many cells it opens
   @Override
   public void onMouseClicked(Posn posn, String key) {
+    this.record(key, posn.x, posn.y);
+    long start = Metrics.start();
+    long allocated = Metrics.allocated();
+    int row = (int) Math.floor(posn.x / IUtils.CELL_SIZE);
+    int column = (int) Math.floor(posn.y / IUtils.CELL_SIZE);
 
     if (key.equals("LeftButton")) {
 
-      this.grid.get((int) Math.floor(posn.x / IUtils.CELL_SIZE))
-      .get((int) Math.floor(posn.y / IUtils.CELL_SIZE)).reveal();
+      this.game.reveal(row, column);
+      this.markDirty(this.game.delta);
 
       if((this.grid.get(posn.y / IUtils.CELL_SIZE).get(posn.x / IUtils.CELL_SIZE)).isRevealed == false
           && !(this.grid.get(posn.y / IUtils.CELL_SIZE).get(posn.x / IUtils.CELL_SIZE)).containsMine == false) {
@@ -217,51 +351,76 @@ class Minesweeper extends World implements IUtils {
 
     }
     else if (key.equals("RightButton")) {
-      this.grid.get((int) Math.floor(posn.x / IUtils.CELL_SIZE))
-      .get((int) Math.floor(posn.y / IUtils.CELL_SIZE)).flagCell();
+      this.game.flag(row, column);
+      this.markDirty(this.game.delta);
+    }
+    else if (key.equals("MiddleButton")) {
+      this.game.chord(row, column);
+      this.markDirty(this.game.delta);
     }
 
-    boolean gameOverLose = false;
-    boolean gameOverWin = true;
+    if (this.game.status() == GameStatus.LOST) {
+      this.endOfWorld("you lost!");
+    }
 
-    for (int r = 0; r < this.rows; r++) {
-      for (int c = 0; c < this.columns; c++) {
-        if (this.grid.get(r).get(c).loseCondition()) {
-          gameOverLose = true;
-        }
+    if (this.game.status() == GameStatus.WON) {
+      this.endOfWorld("you won!");
+    }
+    Metrics.recordClick(start, allocated);
+  }
 
-        if (!this.grid.get(r).get(c).winCondition()) {
-          gameOverWin = false;
-        }
-      }
+  // adds an input event to the log this world is recorded to, if there is one
+  void record(String input, int x, int y) {
+    if (this.recording != null) {
+      this.recording.event(System.nanoTime(), input, x, y);
     }
-    if (gameOverLose) {
-      this.endOfWorld("you lost!");
+  }
+
+  // ends the session this world is recorded to, if there is one, when the game is won
+  // or lost
+  @Override
+  public void endOfWorld(String msg) {
+    if (this.recording != null) {
+      try {
+        this.recording.end();
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      this.recording = null;
     }
+    super.endOfWorld(msg);
+  }
 
-    if (gameOverWin) {
-      this.endOfWorld("you won!");
+  // takes back the last move when "u" is pressed and makes it again when "r" is, for
+  // practising a position
+  @Override
+  public void onKeyEvent(String key) {
+    this.record(key, 0, 0);
+    if ((key.equals("u") && this.game.undo()) || (key.equals("r") && this.game.redo())) {
+      this.markDirty(this.game.delta);
     }
   }
 
-  // creates the last scene of the game, for the winning and losing cases
+  // creates the last scene of the game, for the winning and losing cases. This is
+  // drawn once, so the board is composed from scratch through the same tile path as
+  // makeScene rather than on top of the last frame
   @Override
   public WorldScene lastScene(String msg) {
     WorldScene w = new WorldScene(columns * IUtils.CELL_SIZE, rows * IUtils.CELL_SIZE);
     WorldImage text = new OverlayImage(new TextImage(msg, IUtils.CELL_SIZE, Color.BLACK),
         new RectangleImage(IUtils.CELL_SIZE * 5, IUtils.CELL_SIZE, OutlineMode.SOLID, Color.WHITE));
 
-    for (int r = 0; r < this.rows; r++) {
-      for (int c = 0; c < this.columns; c++) {
-        if (msg.equals("you lost!")) {
+    if (msg.equals("you lost!")) {
+      for (int r = 0; r < this.rows; r++) {
+        for (int c = 0; c < this.columns; c++) {
           this.grid.get(r).get(c).revealMines();
         }
-
-        this.grid.get(r).get(c).drawCell(w, r * IUtils.CELL_SIZE + IUtils.CELL_SIZE / 2,
-            c * IUtils.CELL_SIZE + IUtils.CELL_SIZE / 2);
       }
     }
 
+    this.drawBoard(w);
+
     w.placeImageXY(text, w.height / 2, w.width / 2);
 
     return w;
@@ -305,43 +464,38 @@ class Cell {
 
   // updates numMines field with the mine count in neighbouring cells
   void countMines() {
+    FindMines findMines = new FindMines();
     for (Cell i : this.neighbors) {
-      if (new FindMines().test(i)) {
+      if (findMines.test(i)) {
         this.numMines++;
       }
     }
   }
 
-  // Returns a color corresponding to i-index within the array list
+  // Returns a color corresponding to i-index within the list of number colors
   public Color colorNum(int i) {
-    ArrayList<Color> colors = new ArrayList<Color>(Arrays.asList(Color.BLUE, Color.GREEN, Color.RED,
-        Color.ORANGE, Color.YELLOW, Color.CYAN, Color.PINK, Color.WHITE));
-
-    return colors.get(i - 1);
+    return IUtils.NUM_COLORS.get(i - 1);
   }
 
-  // Creates a WorldImage with the number of mines adjacent to a cell
+  // Returns the WorldImage with the number of mines adjacent to a cell
   public WorldImage displayNum() {
-    return new TextImage(("" + this.numMines), colorNum(this.numMines));
+    return IUtils.NUM_TEXT.get(this.numMines - 1);
   }
 
-  // Draws a state of the Cell in Minesweeper's WorldScene
+  // Draws a state of the Cell in Minesweeper's WorldScene, using the shared tiles
   public WorldScene drawCell(WorldScene w, int row, int column) {
 
     if (!this.isFlagged && !this.isRevealed) {
       w.placeImageXY(IUtils.CELL_COVERED, row, column);
     }
     else if (this.isFlagged && !this.isRevealed) {
-      w.placeImageXY(new OverlayImage(IUtils.FLAG, IUtils.CELL_COVERED), row, column);
-    }
-    else if (!this.containsMine && this.isRevealed && this.numMines == 0) {
-      w.placeImageXY(IUtils.CELL_REVEALED, row, column);
+      w.placeImageXY(IUtils.CELL_FLAGGED, row, column);
     }
-    else if (!this.containsMine && this.isRevealed && this.numMines > 0) {
-      w.placeImageXY(new OverlayImage(this.displayNum(), IUtils.CELL_REVEALED), row, column);
+    else if (!this.containsMine && this.isRevealed) {
+      w.placeImageXY(IUtils.CELL_NUMBERS.get(this.numMines), row, column);
     }
     else {
-      w.placeImageXY(new OverlayImage(IUtils.MINE, IUtils.CELL_REVEALED), row, column);
+      w.placeImageXY(IUtils.CELL_MINE, row, column);
     }
     return w;
   }
@@ -358,17 +512,42 @@ class Cell {
 
   }
 
-  // reveals a cell if there are surrounding mines, flood-fills if there are not
-  public void reveal() {
-    if (!this.isFlagged && !this.isRevealed) {
-      this.isRevealed = true;
+  // reveals a cell and returns how many cells were newly revealed
+  public int reveal() {
+    return this.reveal(null);
+  }
+
+  // reveals a cell if there are surrounding mines, flood-fills if there are not. The
+  // cells still to visit are kept in a queue instead of on the call stack, so a large
+  // empty region can't overflow it, and each cell is revealed once. Adds the newly
+  // revealed cells to revealed when it isn't null and returns how many there were
+  public int reveal(ArrayList<Cell> revealed) {
+    if (this.isFlagged || this.isRevealed) {
+      return 0;
+    }
+
+    ArrayDeque<Cell> work = new ArrayDeque<Cell>();
+    this.isRevealed = true;
+    work.add(this);
+    int count = 1;
 
-      if (this.numMines == 0) {
-        for (int i = 0; i < this.neighbors.size(); i++) {
-          this.neighbors.get(i).reveal();
+    while (!work.isEmpty()) {
+      Cell next = work.remove();
+      if (revealed != null) {
+        revealed.add(next);
+      }
+
+      if (next.numMines == 0) {
+        for (Cell n : next.neighbors) {
+          if (!n.isFlagged && !n.isRevealed) {
+            n.isRevealed = true;
+            count++;
+            work.add(n);
+          }
         }
       }
     }
+    return count;
   }
 
   // flags or unflags a cell based on the current flagged state
@@ -400,6 +579,153 @@ class Cell {
   }
 }
 
+// the cells of a Minesweeper grid seen as an IBoard, so that the rules in Game can be
+// played on the Cell objects the World draws. The cell at index i is
+// grid.get(i / columns).get(i % columns)
+class CellBoard implements IBoard {
+  ArrayList<ArrayList<Cell>> grid;
+  int rows;
+  int columns;
+  // index of every cell, for turning the cells a reveal returns back into indices
+  IdentityHashMap<Cell, Integer> positions;
+
+  CellBoard(ArrayList<ArrayList<Cell>> grid, int columns) {
+    this.grid = grid;
+    this.rows = grid.size();
+    this.columns = columns;
+    this.positions = new IdentityHashMap<Cell, Integer>();
+    for (int r = 0; r < this.rows; r++) {
+      for (int c = 0; c < this.columns; c++) {
+        this.positions.put(grid.get(r).get(c), r * this.columns + c);
+      }
+    }
+  }
+
+  // returns the cell at index i
+  Cell cell(int i) {
+    return this.grid.get(i / this.columns).get(i % this.columns);
+  }
+
+  // returns the number of rows on the board
+  public int rowCount() {
+    return this.rows;
+  }
+
+  // returns the number of columns on the board
+  public int columnCount() {
+    return this.columns;
+  }
+
+  // returns the number of cells on the board
+  public int cellCount() {
+    return this.rows * this.columns;
+  }
+
+  // returns the index of the cell at the given row and column
+  public int index(int row, int column) {
+    return row * this.columns + column;
+  }
+
+  // returns the number of mines on the board
+  public int mineCount() {
+    int count = 0;
+    for (int i = 0; i < this.cellCount(); i++) {
+      if (this.cell(i).containsMine) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // checks if the cell at index i contains a mine
+  public boolean containsMine(int i) {
+    return this.cell(i).containsMine;
+  }
+
+  // checks if the cell at index i is revealed
+  public boolean isRevealed(int i) {
+    return this.cell(i).isRevealed;
+  }
+
+  // checks if the cell at index i is flagged
+  public boolean isFlagged(int i) {
+    return this.cell(i).isFlagged;
+  }
+
+  // returns the number of mines adjacent to the cell at index i
+  public int numMines(int i) {
+    return this.cell(i).numMines;
+  }
+
+  // writes the indices of the neighbours of the cell at index i into out and returns
+  // how many there are
+  public int neighbors(int i, int[] out) {
+    int row = i / this.columns;
+    int column = i % this.columns;
+    int count = 0;
+    for (int k = 0; k < 8; k++) {
+      int r = row + Board.NEIGHBOR_ROWS[k];
+      int c = column + Board.NEIGHBOR_COLUMNS[k];
+      if (r >= 0 && r < this.rows && c >= 0 && c < this.columns) {
+        out[count] = r * this.columns + c;
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // adds a mine to the cell at index i if it doesn't already contain a mine
+  public boolean addAMine(int i) {
+    return this.cell(i).addAMine();
+  }
+
+  // counts the number of mines present in the neighbouring cell of each cell, from a
+  // bitmap of the mines rather than by walking every cell's list of neighbours
+  public void countAllMines() {
+    long[] mineBits = new long[Board.words(this.cellCount())];
+    for (int i = 0; i < this.cellCount(); i++) {
+      if (this.cell(i).containsMine) {
+        Board.setBit(mineBits, i);
+      }
+    }
+
+    byte[] counts = new byte[this.cellCount()];
+    AdjacentCounter.countAll(mineBits, this.rows, this.columns, counts);
+
+    for (int i = 0; i < this.cellCount(); i++) {
+      this.cell(i).numMines = counts[i];
+    }
+  }
+
+  // reveals the cell at index i through Cell.reveal, adding the indices of the newly
+  // revealed cells to delta when it isn't null
+  public int reveal(int i, IntList delta) {
+    ArrayList<Cell> revealed = new ArrayList<Cell>();
+    int count = this.cell(i).reveal(revealed);
+    if (delta != null) {
+      for (Cell c : revealed) {
+        delta.add(this.positions.get(c));
+      }
+    }
+    return count;
+  }
+
+  // flags or unflags the cell at index i
+  public void flagCell(int i) {
+    this.cell(i).flagCell();
+  }
+
+  // covers or uncovers the cell at index i alone, without flood-filling
+  public void setRevealed(int i, boolean revealed) {
+    this.cell(i).isRevealed = revealed;
+  }
+
+  // checks if the cell at index i satisfies the losing conditions
+  public boolean loseCondition(int i) {
+    return this.cell(i).loseCondition();
+  }
+}
+
 // Class that defines the test method to return true if a given Cell contains a
 // Mine
 class FindMines implements Predicate<Cell> {
@@ -434,7 +760,7 @@ class ExamplesMinesweeper {
     this.c9 = new Cell();
   }
 
-  Minesweeper m1 = new Minesweeper(3, 3, 3, new Random(5));
+  Minesweeper m1 = new Minesweeper(3, 3, 3, new Random(89));
 
   // tests the constructor exceptions for minesweeper
   boolean testConstructorExceptions(Tester t) {
@@ -495,6 +821,9 @@ class ExamplesMinesweeper {
     t.checkExpect(this.c2.colorNum(this.c2.numMines), Color.GREEN);
     t.checkExpect(this.c1.displayNum(), new TextImage("1", Color.BLUE)); // test displayNum Method
     t.checkExpect(this.c2.displayNum(), new TextImage("2", Color.GREEN));
+    t.checkExpect(this.c2.displayNum() == this.c2.displayNum(), true);
+    t.checkExpect(IUtils.CELL_NUMBERS.get(2),
+        new OverlayImage(new TextImage("2", Color.GREEN), IUtils.CELL_REVEALED));
 
     this.c4.isRevealed = true;
 
@@ -517,7 +846,10 @@ class ExamplesMinesweeper {
     this.c3.addToNeighbors(c6);
 
     // test reveal method
-    c3.reveal();
+    ArrayList<Cell> revealed = new ArrayList<Cell>();
+    t.checkExpect(c3.reveal(revealed), 4);
+    t.checkExpect(revealed, new ArrayList<Cell>(Arrays.asList(this.c3, this.c2, this.c5, this.c6)));
+    t.checkExpect(c3.reveal(), 0);
 
     // test to see if flood filling works
     t.checkExpect(c3.isRevealed, true);
@@ -552,6 +884,21 @@ class ExamplesMinesweeper {
     t.checkExpect(c9.isRevealed, false);
   }
 
+  // tests that revealing a long empty chain of cells does not overflow the stack
+  void testRevealDeep(Tester t) {
+    ArrayList<Cell> chain = new ArrayList<Cell>();
+    for (int i = 0; i < 200000; i++) {
+      chain.add(new Cell());
+    }
+    for (int i = 1; i < chain.size(); i++) {
+      chain.get(i - 1).addToNeighbors(chain.get(i));
+      chain.get(i).addToNeighbors(chain.get(i - 1));
+    }
+
+    t.checkExpect(chain.get(0).reveal(), 200000);
+    t.checkExpect(chain.get(199999).isRevealed, true);
+  }
+
   // tests all minesweeper methods, building up to a completely constructed
   // minesweeper WorldScene
   void testMinesweeper(Tester t) {
@@ -790,6 +1137,169 @@ class ExamplesMinesweeper {
 
   }
 
+  // tests that clicks keep the game-over counters up to date
+  void testGameOverCounters(Tester t) {
+    Minesweeper m = new Minesweeper(3, 3, 3, new Random(89));
+    m.makeGrid();
+    t.checkExpect(m.game.safeRemaining, 9);
+    m.addMines();
+    m.findNeighbors();
+    m.countAllMines();
+    t.checkExpect(m.game.safeRemaining, 6);
+
+    m.onMouseClicked(new Posn(125, 125), "LeftButton");
+    t.checkExpect(m.game.safeRemaining, 2);
+    m.onMouseClicked(new Posn(125, 125), "LeftButton");
+    t.checkExpect(m.game.safeRemaining, 2);
+    m.onMouseClicked(new Posn(10, 110), "RightButton");
+    m.onMouseClicked(new Posn(10, 110), "LeftButton");
+    t.checkExpect(m.game.safeRemaining, 2);
+    m.onMouseClicked(new Posn(10, 110), "RightButton");
+    m.onMouseClicked(new Posn(10, 110), "LeftButton");
+    m.onMouseClicked(new Posn(110, 10), "LeftButton");
+    t.checkExpect(m.game.safeRemaining, 0);
+    t.checkExpect(m.game.exploded, false);
+
+    m.onMouseClicked(new Posn(10, 10), "LeftButton");
+    t.checkExpect(m.game.exploded, true);
+    t.checkExpect(m.game.safeRemaining, 0);
+  }
+
+  // tests chording with the middle button
+  void testChord(Tester t) {
+    Minesweeper m = new Minesweeper(3, 3, 3, new Random(89));
+    m.makeGrid();
+    m.addMines();
+    m.findNeighbors();
+    m.countAllMines();
+    m.onMouseClicked(new Posn(125, 125), "LeftButton");
+    m.makeScene();
+
+    m.onMouseClicked(new Posn(60, 110), "MiddleButton");
+    t.checkExpect(m.dirty.isEmpty(), true);
+    m.onMouseClicked(new Posn(10, 60), "RightButton");
+    m.onMouseClicked(new Posn(10, 60), "MiddleButton");
+    m.onMouseClicked(new Posn(60, 110), "MiddleButton");
+    t.checkExpect(m.grid.get(0).get(2).isRevealed, true);
+    t.checkExpect(m.dirty.toArray(), new int[] { 1, 2 });
+    t.checkExpect(m.game.status(), GameStatus.PLAYING);
+
+    m.onMouseClicked(new Posn(60, 10), "RightButton");
+    m.onMouseClicked(new Posn(110, 60), "MiddleButton");
+    t.checkExpect(m.grid.get(2).get(0).isRevealed, true);
+    t.checkExpect(m.game.safeRemaining, 0);
+    t.checkExpect(m.game.status(), GameStatus.WON);
+
+    Minesweeper lose = new Minesweeper(3, 3, 3, new Random(89));
+    lose.makeGrid();
+    lose.addMines();
+    lose.findNeighbors();
+    lose.countAllMines();
+    lose.onMouseClicked(new Posn(125, 125), "LeftButton");
+    lose.onMouseClicked(new Posn(10, 110), "RightButton");
+    lose.onMouseClicked(new Posn(60, 110), "MiddleButton");
+    t.checkExpect(lose.grid.get(0).get(1).isRevealed, true);
+    t.checkExpect(lose.game.status(), GameStatus.LOST);
+  }
+
+  // tests taking moves back and making them again from the keyboard
+  void testUndoKeys(Tester t) {
+    Minesweeper m = new Minesweeper(3, 3, 3, new Random(89));
+    m.makeGrid();
+    m.addMines();
+    m.findNeighbors();
+    m.countAllMines();
+    m.onMouseClicked(new Posn(125, 125), "LeftButton");
+    m.onMouseClicked(new Posn(10, 60), "RightButton");
+    m.makeScene();
+
+    m.onKeyEvent("u");
+    t.checkExpect(m.grid.get(0).get(1).isFlagged, false);
+    t.checkExpect(m.dirty.toArray(), new int[] { 1 });
+    m.onKeyEvent("u");
+    t.checkExpect(m.grid.get(2).get(2).isRevealed, false);
+    t.checkExpect(m.game.safeRemaining, 6);
+    m.onKeyEvent("u");
+    t.checkExpect(m.dirty.size, 5);
+    m.onKeyEvent("r");
+    t.checkExpect(m.grid.get(2).get(2).isRevealed, true);
+    m.onKeyEvent("r");
+    t.checkExpect(m.grid.get(0).get(1).isFlagged, true);
+    m.onKeyEvent("x");
+    t.checkExpect(m.game.status(), GameStatus.PLAYING);
+  }
+
+  // tests that makeScene only draws the tiles of cells that changed since the last frame
+  void testDirtyScene(Tester t) {
+    Minesweeper m = new Minesweeper(3, 3, 3, new Random(89));
+    m.makeGrid();
+    m.addMines();
+    m.findNeighbors();
+    m.countAllMines();
+
+    WorldScene first = m.makeScene();
+    WorldScene expected = new WorldScene(IUtils.CELL_SIZE * 3, IUtils.CELL_SIZE * 3);
+    expected.placeImageXY(new TextImage("Score: 0", Color.BLACK), 50, 50);
+    m.drawBoard(expected);
+    t.checkExpect(first, expected);
+
+    m.onMouseClicked(new Posn(125, 125), "LeftButton");
+    m.onMouseClicked(new Posn(10, 110), "RightButton");
+    t.checkExpect(m.dirty.toArray(), new int[] { 8, 5, 7, 4, 2 });
+
+    m.grid.get(2).get(2).drawCell(expected, 125, 125);
+    m.grid.get(1).get(2).drawCell(expected, 75, 125);
+    m.grid.get(2).get(1).drawCell(expected, 125, 75);
+    m.grid.get(1).get(1).drawCell(expected, 75, 75);
+    m.grid.get(0).get(2).drawCell(expected, 25, 125);
+
+    t.checkExpect(m.makeScene() == first, true);
+    t.checkExpect(first, expected);
+    t.checkExpect(m.dirty.isEmpty(), true);
+    t.checkExpect(m.overdrawn, 5);
+
+    // drawing more tiles than there are cells composes the board from scratch
+    for (int i = 0; i < 5; i++) {
+      m.onMouseClicked(new Posn(10, 110), "RightButton");
+    }
+    WorldScene rebuilt = new WorldScene(IUtils.CELL_SIZE * 3, IUtils.CELL_SIZE * 3);
+    rebuilt.placeImageXY(new TextImage("Score: 0", Color.BLACK), 50, 50);
+    m.drawBoard(rebuilt);
+    t.checkExpect(m.makeScene(), rebuilt);
+    t.checkExpect(m.overdrawn, 0);
+  }
+
+  // tests seeded games and the first-click-safe mode
+  void testSeededMines(Tester t) {
+    Minesweeper a = new Minesweeper(10, 10, 20, 77L, false);
+    Minesweeper b = new Minesweeper(10, 10, 20, 77L, false);
+    Minesweeper safe = new Minesweeper(10, 10, 96, 77L, true);
+    int mines = 0;
+    boolean same = true;
+    boolean lastRowOrColumn = false;
+    for (int r = 0; r < 10; r++) {
+      for (int c = 0; c < 10; c++) {
+        Cell cell = a.grid.get(r).get(c);
+        same = same && cell.containsMine == b.grid.get(r).get(c).containsMine;
+        mines += cell.containsMine ? 1 : 0;
+        lastRowOrColumn = lastRowOrColumn || (cell.containsMine && (r == 9 || c == 9));
+      }
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(mines, 20);
+    t.checkExpect(a.game.safeRemaining, 80);
+    t.checkExpect(lastRowOrColumn, true);
+
+    t.checkExpect(safe.game.minesPending, true);
+    t.checkExpect(safe.game.safeRemaining, 100);
+    safe.onMouseClicked(new Posn(460, 10), "LeftButton");
+    t.checkExpect(safe.game.minesPending, false);
+    t.checkExpect(safe.game.safeRemaining, 0);
+    t.checkExpect(safe.game.status(), GameStatus.WON);
+    t.checkExpect(safe.grid.get(9).get(0).numMines, 0);
+    t.checkExpect(safe.grid.get(8).get(1).isRevealed, true);
+  }
+
   // tests the game
   void testGame(Tester t) {
     Minesweeper m = new Minesweeper(18, 14, 30);
@@ -0,0 +1,53 @@
+// the metrics of Metrics as JMX attributes, registered by Metrics.register(). Times are
+// in microseconds; percentiles are the upper bounds of the power-of-two buckets they
+// fall in
+public interface MinesweeperMetricsMXBean {
+
+  // returns whether metrics are being recorded
+  boolean isEnabled();
+
+  // starts or stops recording metrics
+  void setEnabled(boolean enabled);
+
+  // returns the number of clicks handled
+  long getClickCount();
+
+  // returns the mean time to handle a click
+  double getClickMeanMicros();
+
+  // returns the 99th percentile of the time to handle a click
+  double getClickP99Micros();
+
+  // returns the mean bytes allocated while handling a click, or 0 if unknown
+  double getClickMeanBytes();
+
+  // returns the number of reveals
+  long getRevealCount();
+
+  // returns the mean number of cells opened by a reveal
+  double getRevealMeanCells();
+
+  // returns the largest number of cells opened by one reveal
+  long getRevealMaxCells();
+
+  // returns the 99th percentile of the time to reveal a cell
+  double getRevealP99Micros();
+
+  // returns the number of boards generated
+  long getGenerationCount();
+
+  // returns the mean time to generate a board
+  double getGenerationMeanMicros();
+
+  // returns the number of frames drawn
+  long getFrameCount();
+
+  // returns the mean time to draw a frame
+  double getFrameMeanMicros();
+
+  // returns the mean number of cells drawn per frame
+  double getFrameMeanCells();
+
+  // clears every metric
+  void reset();
+}
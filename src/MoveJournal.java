@@ -0,0 +1,197 @@
+import java.util.Arrays;
+
+import tester.Tester;
+
+// Records the moves of a Game so they can be taken back and made again. Every move is
+// one record in a single growing int list: a header holding the kind of move and
+// whether a mine had gone off before it, then the cells it changed in increasing order
+// of index, as runs of consecutive cells. A run of one cell is stored as the complement
+// of its index and a longer run as its first index and its length, so a flood fill
+// that opens half a board costs about two ints per row it crosses and a single flag
+// two ints in total. Undoing or redoing a move decodes only its own record, so it costs
+// time in proportion to the cells the move changed. Making a move after undoing drops
+// the moves that could have been redone
+class MoveJournal {
+  static final int REVEAL = 0;
+  static final int FLAG = 1;
+  static final int EXPLODED = 2;
+
+  // the records of every move, one after another
+  IntList data;
+  // position in data of the start of each record
+  IntList starts;
+  // number of recorded moves that are currently made
+  int applied;
+  // the cells of the move being recorded, sorted before they are encoded
+  int[] scratch;
+
+  MoveJournal() {
+    this.data = new IntList();
+    this.starts = new IntList();
+    this.applied = 0;
+    this.scratch = new int[16];
+  }
+
+  // records a move of the given kind that changed the given cells, after a mine had
+  // gone off if exploded is set
+  void record(int kind, boolean exploded, IntList cells) {
+    if (this.applied < this.starts.size) {
+      this.data.size = this.starts.get(this.applied);
+      this.starts.size = this.applied;
+    }
+    this.starts.add(this.data.size);
+    this.data.add(kind | (exploded ? EXPLODED : 0));
+    this.applied++;
+
+    if (this.scratch.length < cells.size) {
+      this.scratch = new int[Math.max(cells.size, this.scratch.length * 2)];
+    }
+    System.arraycopy(cells.items, 0, this.scratch, 0, cells.size);
+    Arrays.sort(this.scratch, 0, cells.size);
+    int k = 0;
+    while (k < cells.size) {
+      int first = this.scratch[k];
+      int length = 1;
+      while (k + length < cells.size && this.scratch[k + length] == first + length) {
+        length++;
+      }
+      if (length == 1) {
+        this.data.add(~first);
+      }
+      else {
+        this.data.add(first);
+        this.data.add(length);
+      }
+      k += length;
+    }
+  }
+
+  // checks if there is a move to undo
+  boolean canUndo() {
+    return this.applied > 0;
+  }
+
+  // checks if there is an undone move to redo
+  boolean canRedo() {
+    return this.applied < this.starts.size;
+  }
+
+  // steps back over the last move made and returns its number
+  int back() {
+    this.applied--;
+    return this.applied;
+  }
+
+  // steps forward over the next undone move and returns its number
+  int forward() {
+    this.applied++;
+    return this.applied - 1;
+  }
+
+  // returns the kind of the given move
+  int kind(int move) {
+    return this.data.get(this.starts.get(move)) & ~EXPLODED;
+  }
+
+  // checks if a mine had gone off before the given move
+  boolean explodedBefore(int move) {
+    return (this.data.get(this.starts.get(move)) & EXPLODED) != 0;
+  }
+
+  // adds the cells changed by the given move to out
+  void cells(int move, IntList out) {
+    int end = move + 1 < this.starts.size ? this.starts.get(move + 1) : this.data.size;
+    int k = this.starts.get(move) + 1;
+    while (k < end) {
+      int first = this.data.get(k);
+      if (first < 0) {
+        out.add(~first);
+        k++;
+      }
+      else {
+        for (int length = this.data.get(k + 1), i = first; i < first + length; i++) {
+          out.add(i);
+        }
+        k += 2;
+      }
+    }
+  }
+}
+
+// examples and tests for the move journal
+class ExamplesMoveJournal {
+
+  // tests the encoding of runs and single cells, and dropping the moves to redo
+  void testJournalRecords(Tester t) {
+    MoveJournal journal = new MoveJournal();
+    IntList cells = new IntList();
+    for (int i : new int[] { 9, 3, 4, 5, 7, 12, 11 }) {
+      cells.add(i);
+    }
+    journal.record(MoveJournal.REVEAL, false, cells);
+    t.checkExpect(journal.data.toArray(), new int[] { 0, 3, 3, ~7, ~9, 11, 2 });
+    cells.clear();
+    cells.add(20);
+    journal.record(MoveJournal.FLAG, true, cells);
+    t.checkExpect(journal.kind(1), MoveJournal.FLAG);
+    t.checkExpect(journal.explodedBefore(1), true);
+
+    IntList out = new IntList();
+    journal.cells(0, out);
+    t.checkExpect(out.toArray(), new int[] { 3, 4, 5, 7, 9, 11, 12 });
+    t.checkExpect(journal.back(), 1);
+    t.checkExpect(journal.canRedo(), true);
+    journal.record(MoveJournal.FLAG, false, cells);
+    t.checkExpect(journal.canRedo(), false);
+    t.checkExpect(journal.starts.size, 2);
+    t.checkExpect(journal.data.size, 9);
+  }
+
+  // tests undoing and redoing moves on each kind of board
+  void testJournalUndoRedo(Tester t) {
+    IBoard[] boards = { new Board(4, 5), new PaddedBoard(4, 5) };
+    for (IBoard board : boards) {
+      Game g = new Game(board);
+      g.placeMines(new int[] { 0, 1, 5, 17 });
+      g.startJournal();
+      g.reveal(3, 4);
+      int opened = g.safeRemaining;
+      g.flag(0, 0);
+      g.reveal(0, 1);
+      t.checkExpect(g.status(), GameStatus.LOST);
+
+      t.checkExpect(g.undo(), true);
+      t.checkExpect(g.delta.toArray(), new int[] { 1 });
+      t.checkExpect(g.status(), GameStatus.PLAYING);
+      t.checkExpect(g.undo(), true);
+      t.checkExpect(board.isFlagged(0), false);
+      t.checkExpect(g.undo(), true);
+      t.checkExpect(g.safeRemaining, 16);
+      t.checkExpect(board.isRevealed(19), false);
+      t.checkExpect(g.undo(), false);
+
+      t.checkExpect(g.redo(), true);
+      t.checkExpect(g.safeRemaining, opened);
+      t.checkExpect(board.isRevealed(19), true);
+      t.checkExpect(g.redo(), true);
+      t.checkExpect(board.isFlagged(0), true);
+      t.checkExpect(g.redo(), true);
+      t.checkExpect(g.status(), GameStatus.LOST);
+      t.checkExpect(g.redo(), false);
+    }
+  }
+
+  // tests that a flood fill over most of a large board takes little room to record
+  void testJournalFloodSize(Tester t) {
+    Game g = new Game(new PaddedBoard(1000, 1000));
+    g.placeMines(new int[] { 500 * 1000 + 500 });
+    g.startJournal();
+    t.checkExpect(g.reveal(0, 0), 1000 * 1000 - 1);
+    t.checkExpect(g.journal.data.size < 10, true);
+    t.checkExpect(g.undo(), true);
+    t.checkExpect(g.safeRemaining, 1000 * 1000 - 1);
+    t.checkExpect(g.delta.size, 1000 * 1000 - 1);
+    t.checkExpect(g.redo(), true);
+    t.checkExpect(g.status(), GameStatus.WON);
+  }
+}
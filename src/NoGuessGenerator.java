@@ -0,0 +1,156 @@
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import tester.Tester;
+
+// Generates mine layouts that can be solved by logic alone from a given first click.
+// Each candidate is a first-click-safe layout drawn from its own seed, played out by the
+// Solver; when the solver gets stuck, a mine from the cells it is stuck on is moved to a
+// covered cell away from what has been revealed and the candidate is played again, up to
+// a fixed number of repairs. Candidates are tried in parallel on the fork-join pool and
+// numbered, and the lowest numbered candidate that passes is returned, so workers stop
+// taking new candidates once one passes and the same seed always gives the same layout
+class NoGuessGenerator {
+  // number of candidates tried before giving up
+  static final int MAX_CANDIDATES = 1 << 16;
+  // number of times a candidate is repaired before it is dropped
+  static final int MAX_REPAIRS = 16;
+
+  int rows;
+  int columns;
+  int mines;
+  long seed;
+  int threads;
+
+  NoGuessGenerator(int rows, int columns, int mines, long seed) {
+    this(rows, columns, mines, seed, Runtime.getRuntime().availableProcessors());
+  }
+
+  NoGuessGenerator(int rows, int columns, int mines, long seed, int threads) {
+    this.rows = new Utils().checkRange(rows, 0, Integer.MAX_VALUE, "Invalid Number of Rows");
+    this.columns = new Utils().checkRange(columns, 0, Integer.MAX_VALUE,
+        "Invalid Number of Columns");
+    this.mines = new Utils().checkRange(mines, -1, rows * columns - 1,
+        "Invalid Number of Mines");
+    this.seed = seed;
+    this.threads = Math.max(threads, 1);
+  }
+
+  // returns the indices of the mines of a layout that can be solved without guessing
+  // from a first click on the given row and column
+  int[] generate(int row, int column) {
+    int first = row * this.columns + column;
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger found = new AtomicInteger(MAX_CANDIDATES);
+    ConcurrentHashMap<Integer, int[]> passed = new ConcurrentHashMap<Integer, int[]>();
+    IntStream.range(0, this.threads).parallel().forEach(worker -> {
+      for (int k = next.getAndIncrement(); k < found.get(); k = next.getAndIncrement()) {
+        int[] layout = this.attempt(k, first);
+        if (layout != null) {
+          passed.put(k, layout);
+          found.accumulateAndGet(k, Math::min);
+        }
+      }
+    });
+    if (found.get() == MAX_CANDIDATES) {
+      throw new IllegalStateException("No Layout Without Guesses Found");
+    }
+    return passed.get(found.get());
+  }
+
+  // returns the layout of the candidate with the given number after repairing it, or
+  // null if it still needs a guess after the last repair
+  int[] attempt(int candidate, int first) {
+    Random rand = new Random(this.seed + candidate * 0x9E3779B97F4A7C15L);
+    int[] safe = MineGenerator.safeZone(this.rows, this.columns, this.mines,
+        first / this.columns, first % this.columns);
+    int[] layout = new MineGenerator(rand).choose(this.rows * this.columns, this.mines, safe);
+    for (int repair = 0; repair <= MAX_REPAIRS; repair++) {
+      Solver solver = this.play(layout, first);
+      if (solver.game.status() == GameStatus.WON) {
+        return layout;
+      }
+      if (!this.repair(layout, solver, rand)) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  // plays the given layout from the first click and returns the solver where it stopped
+  Solver play(int[] layout, int first) {
+    Game game = new Game(new PaddedBoard(this.rows, this.columns));
+    game.placeMines(layout);
+    Solver solver = new Solver(game);
+    solver.reveal(first);
+    solver.solve();
+    return solver;
+  }
+
+  // moves one mine of the layout that the solver couldn't decide on to a covered cell
+  // with no revealed neighbour, returning false if there is no such mine or cell
+  boolean repair(int[] layout, Solver solver, Random rand) {
+    IBoard board = solver.board;
+    int[] near = new int[8];
+    IntList stuck = new IntList();
+    IntList far = new IntList();
+    for (int i = 0; i < board.cellCount(); i++) {
+      if (!solver.isUnknown(i)) {
+        continue;
+      }
+      int count = board.neighbors(i, near);
+      boolean frontier = false;
+      for (int k = 0; k < count && !frontier; k++) {
+        frontier = board.isRevealed(near[k]);
+      }
+      if (frontier && board.containsMine(i)) {
+        stuck.add(i);
+      }
+      else if (!frontier && !board.containsMine(i)) {
+        far.add(i);
+      }
+    }
+    if (stuck.isEmpty() || far.isEmpty()) {
+      return false;
+    }
+    int from = stuck.get(rand.nextInt(stuck.size));
+    int to = far.get(rand.nextInt(far.size));
+    for (int k = 0; k < layout.length; k++) {
+      if (layout[k] == from) {
+        layout[k] = to;
+      }
+    }
+    return true;
+  }
+}
+
+// examples and tests for the no-guess generator
+class ExamplesNoGuessGenerator {
+
+  // tests that generated expert layouts are solved by logic alone and are reproducible
+  void testNoGuessExpert(Tester t) {
+    NoGuessGenerator gen = new NoGuessGenerator(16, 30, 99, 4L);
+    int[] layout = gen.generate(8, 15);
+    Game g = gen.play(layout, 8 * 30 + 15).game;
+
+    t.checkExpect(layout.length, 99);
+    t.checkExpect(g.status(), GameStatus.WON);
+    t.checkExpect(new NoGuessGenerator(16, 30, 99, 4L, 1).generate(8, 15), layout);
+    t.checkConstructorException(new IllegalArgumentException("Invalid Number of Mines"),
+        "NoGuessGenerator", 3, 3, 9, 1L);
+  }
+
+  // tests a no-guess game whose mines are placed by the first reveal
+  void testNoGuessGame(Tester t) {
+    Game g = new Game(new Board(9, 9));
+    g.deferMines(new NoGuessGenerator(9, 9, 10, 2L));
+    g.reveal(0, 0);
+    Solver s = new Solver(g);
+    s.solve();
+
+    t.checkExpect(g.board.mineCount(), 10);
+    t.checkExpect(g.status(), GameStatus.WON);
+  }
+}
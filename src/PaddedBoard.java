@@ -0,0 +1,292 @@
+import java.util.Arrays;
+import java.util.Random;
+
+import tester.Tester;
+
+// Represents a Minesweeper board stored with a one-cell sentinel border. Each cell is
+// one byte holding its adjacent mine count and whether it has a mine, is revealed or is
+// flagged; the border cells are marked revealed and never hold mines. Every cell of the
+// board then has eight neighbours in storage, at the same eight offsets from its own
+// position, so counting mines, flood-filling and listing neighbours are loops over a
+// fixed table of offsets with no bounds checks, and no neighbour lists are built. Cells
+// are still addressed from outside by their index on the board without the border
+// (row * columns + column)
+class PaddedBoard implements IBoard {
+  // the low four bits of a cell hold its adjacent mine count, the rest are flags
+  static final int COUNT = 0x0F;
+  static final int MINE = 0x10;
+  static final int REVEALED = 0x20;
+  static final int FLAGGED = 0x40;
+  static final int BORDER = 0x80;
+
+  int rows;
+  int columns;
+  // width of a row in storage, including the border
+  int stride;
+  int mines;
+  byte[] cells;
+  // positions in storage of the eight neighbours of a cell, relative to its own, in
+  // the order of Board.NEIGHBOR_ROWS and Board.NEIGHBOR_COLUMNS
+  int[] offsets;
+  // the stack of the flood fill, kept between reveals
+  IntList stack;
+
+  PaddedBoard(int rows, int columns) {
+    this.rows = new Utils().checkRange(rows, 0, Board.MAX_CELLS / 3 - 2,
+        "Invalid Number of Rows");
+    this.columns = new Utils().checkRange(columns, 0, Board.MAX_CELLS / (rows + 2) - 2,
+        "Invalid Number of Columns");
+    this.stride = columns + 2;
+    this.mines = 0;
+    this.cells = new byte[(rows + 2) * this.stride];
+    this.offsets = new int[8];
+    for (int k = 0; k < 8; k++) {
+      this.offsets[k] = Board.NEIGHBOR_ROWS[k] * this.stride + Board.NEIGHBOR_COLUMNS[k];
+    }
+    this.stack = new IntList();
+
+    byte border = (byte) (BORDER | REVEALED);
+    Arrays.fill(this.cells, 0, this.stride, border);
+    Arrays.fill(this.cells, (rows + 1) * this.stride, this.cells.length, border);
+    for (int r = 1; r <= rows; r++) {
+      this.cells[r * this.stride] = border;
+      this.cells[r * this.stride + columns + 1] = border;
+    }
+  }
+
+  // returns the position in storage of the cell at index i
+  int position(int i) {
+    return i + (i / this.columns) * 2 + this.stride + 1;
+  }
+
+  // returns the index of the cell at position p in storage
+  int indexOf(int p) {
+    int row = p / this.stride;
+    return (row - 1) * this.columns + p - row * this.stride - 1;
+  }
+
+  // checks if the cell at position p in storage has all the given flags
+  boolean has(int p, int flags) {
+    return (this.cells[p] & flags) == flags;
+  }
+
+  // returns the number of rows on the board
+  public int rowCount() {
+    return this.rows;
+  }
+
+  // returns the number of columns on the board
+  public int columnCount() {
+    return this.columns;
+  }
+
+  // returns the number of cells on the board
+  public int cellCount() {
+    return this.rows * this.columns;
+  }
+
+  // returns the number of mines on the board
+  public int mineCount() {
+    return this.mines;
+  }
+
+  // returns the index of the cell at the given row and column
+  public int index(int row, int column) {
+    return row * this.columns + column;
+  }
+
+  // checks if the cell at index i contains a mine
+  public boolean containsMine(int i) {
+    return this.has(this.position(i), MINE);
+  }
+
+  // checks if the cell at index i is revealed
+  public boolean isRevealed(int i) {
+    return this.has(this.position(i), REVEALED);
+  }
+
+  // checks if the cell at index i is flagged
+  public boolean isFlagged(int i) {
+    return this.has(this.position(i), FLAGGED);
+  }
+
+  // returns the number of mines adjacent to the cell at index i
+  public int numMines(int i) {
+    return this.cells[this.position(i)] & COUNT;
+  }
+
+  // writes the indices of the neighbours of the cell at index i into out and returns
+  // how many there are; out must hold at least 8 ints
+  public int neighbors(int i, int[] out) {
+    int p = this.position(i);
+    int count = 0;
+    for (int k = 0; k < 8; k++) {
+      int n = p + this.offsets[k];
+      if ((this.cells[n] & BORDER) == 0) {
+        out[count] = this.indexOf(n);
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // adds a mine to the cell at index i if it doesn't already contain a mine
+  public boolean addAMine(int i) {
+    int p = this.position(i);
+    if (this.has(p, MINE)) {
+      return false;
+    }
+    this.cells[p] |= MINE;
+    this.mines++;
+    return true;
+  }
+
+  // counts the number of mines adjacent to every cell on the board, summing the mine
+  // bits at the eight offsets around each cell, several cells at a time when the Vector
+  // API is available
+  public void countAllMines() {
+    Kernels.best().countAll(this.cells, this.rows, this.columns);
+  }
+
+  // sets out[p] to 1 for every covered cell next to a revealed cell, where p is its
+  // position in storage, and returns how many there are
+  int frontier(byte[] out) {
+    return Kernels.best().frontier(this.cells, this.rows, this.columns, out);
+  }
+
+  // reveals the cell at index i if it isn't flagged or revealed, and flood-fills
+  // outwards from it through cells with no adjacent mines. The border is already
+  // revealed, so the fill stops at it without checking bounds. Adds the newly revealed
+  // cells to delta when it isn't null and returns how many there were
+  public int reveal(int i, IntList delta) {
+    int p = this.position(i);
+    if ((this.cells[p] & (REVEALED | FLAGGED)) != 0) {
+      return 0;
+    }
+    this.cells[p] |= REVEALED;
+    if (delta != null) {
+      delta.add(i);
+    }
+    if ((this.cells[p] & (MINE | COUNT)) != 0) {
+      return 1;
+    }
+
+    int count = 1;
+    this.stack.clear();
+    this.stack.add(p);
+    while (!this.stack.isEmpty()) {
+      int q = this.stack.pop();
+      for (int k = 0; k < 8; k++) {
+        int n = q + this.offsets[k];
+        if ((this.cells[n] & (REVEALED | FLAGGED)) == 0) {
+          this.cells[n] |= REVEALED;
+          count++;
+          if (delta != null) {
+            delta.add(this.indexOf(n));
+          }
+          if ((this.cells[n] & COUNT) == 0) {
+            this.stack.add(n);
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  // flags or unflags the cell at index i based on the current flagged state
+  public void flagCell(int i) {
+    this.cells[this.position(i)] ^= FLAGGED;
+  }
+
+  // covers or uncovers the cell at index i alone, without flood-filling
+  public void setRevealed(int i, boolean revealed) {
+    int p = this.position(i);
+    this.cells[p] = (byte) (revealed ? this.cells[p] | REVEALED : this.cells[p] & ~REVEALED);
+  }
+
+  // checks if the cell at index i satisfies the losing conditions
+  public boolean loseCondition(int i) {
+    return this.has(this.position(i), MINE | REVEALED);
+  }
+}
+
+// examples and tests for the sentinel-padded board
+class ExamplesPaddedBoard {
+
+  // tests the border, positions and neighbours
+  void testPaddedSetup(Tester t) {
+    PaddedBoard b = new PaddedBoard(3, 4);
+    int[] around = new int[8];
+    t.checkExpect(b.cells.length, 5 * 6);
+    t.checkExpect(b.position(0), 7);
+    t.checkExpect(b.indexOf(7), 0);
+    t.checkExpect(b.indexOf(b.position(11)), 11);
+    t.checkExpect(b.neighbors(0, around), 3);
+    t.checkExpect(Arrays.copyOf(around, 3), new int[] { 4, 1, 5 });
+    t.checkExpect(b.neighbors(5, around), 8);
+    t.checkExpect(b.isRevealed(0), false);
+    t.checkExpect(b.has(0, PaddedBoard.BORDER | PaddedBoard.REVEALED), true);
+    t.checkConstructorException(new IllegalArgumentException("Invalid Number of Rows"),
+        "PaddedBoard", 0, 4);
+  }
+
+  // tests that counts, reveals, flags and neighbours agree with the packed board
+  void testPaddedMatchesBoard(Tester t) {
+    Random rand = new Random(17);
+    boolean same = true;
+    int[] a = new int[8];
+    int[] b = new int[8];
+    for (int round = 0; round < 30; round++) {
+      int rows = 1 + rand.nextInt(40);
+      int columns = 1 + rand.nextInt(40);
+      Board board = new Board(rows, columns);
+      PaddedBoard padded = new PaddedBoard(rows, columns);
+      for (int i : new MineGenerator(rand.nextLong()).choose(rows * columns,
+          rand.nextInt(rows * columns / 5 + 1))) {
+        board.addAMine(i);
+        padded.addAMine(i);
+      }
+      board.countAllMines();
+      padded.countAllMines();
+      for (int move = 0; move < 6; move++) {
+        int i = rand.nextInt(rows * columns);
+        if (rand.nextInt(3) == 0) {
+          board.flagCell(i);
+          padded.flagCell(i);
+        }
+        else {
+          same = same && board.reveal(i, null) == padded.reveal(i, null);
+        }
+      }
+      for (int i = 0; i < rows * columns; i++) {
+        same = same && board.numMines(i) == padded.numMines(i)
+            && board.containsMine(i) == padded.containsMine(i)
+            && board.isRevealed(i) == padded.isRevealed(i)
+            && board.isFlagged(i) == padded.isFlagged(i)
+            && board.loseCondition(i) == padded.loseCondition(i);
+        int n = board.neighbors(i, a);
+        same = same && n == padded.neighbors(i, b)
+            && Arrays.equals(Arrays.copyOf(a, n), Arrays.copyOf(b, n));
+      }
+    }
+    t.checkExpect(same, true);
+  }
+
+  // tests playing a game on a padded board, and a flood that reaches every edge
+  void testPaddedGame(Tester t) {
+    Game g = new Game(new PaddedBoard(3, 3));
+    g.placeMines(new int[] { 0, 1, 3 });
+    t.checkExpect(g.reveal(2, 2), 4);
+    t.checkExpect(g.delta.size, 4);
+    g.flag(1, 0);
+    t.checkExpect(g.chord(2, 1), 1);
+    g.flag(0, 1);
+    t.checkExpect(g.chord(1, 2), 1);
+    t.checkExpect(g.status(), GameStatus.WON);
+
+    Game open = new Game(new PaddedBoard(500, 700));
+    open.placeMines(new int[] { 250 * 700 + 350 });
+    t.checkExpect(open.reveal(0, 0), 500 * 700 - 1);
+    t.checkExpect(open.status(), GameStatus.WON);
+  }
+}
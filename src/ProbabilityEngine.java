@@ -0,0 +1,704 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+import tester.Tester;
+
+// Computes the exact probability that each covered cell of a Game holds a mine, from what
+// a player can see: the revealed numbers and the number of mines on the board. The
+// covered cells next to a revealed number (the frontier) are split into components that
+// share no number, the configurations of each component are counted by dynamic
+// programming over its cells, and the components are combined with the number of ways
+// the remaining mines can be spread over the covered cells away from the frontier (the
+// interior). The result of each component is remembered by its cells and numbers, so a
+// move only recounts the components it changed
+class ProbabilityEngine {
+  Game game;
+  IBoard board;
+  // deductions that are already certain, or null; they shrink the frontier
+  Solver solver;
+  // results of the components seen by the last call to compute
+  HashMap<ComponentKey, ComponentResult> cache;
+  // number of components enumerated and reused by the last call to compute
+  int enumerated;
+  int reused;
+
+  ProbabilityEngine(Game game) {
+    this(game, null);
+  }
+
+  ProbabilityEngine(Game game, Solver solver) {
+    this.game = game;
+    this.board = game.board;
+    this.solver = solver;
+    this.cache = new HashMap<ComponentKey, ComponentResult>();
+    this.enumerated = 0;
+    this.reused = 0;
+  }
+
+  // checks if the cell at index i is known to hold a mine
+  boolean knownMine(int i) {
+    return this.solver != null && this.solver.isKnownMine(i);
+  }
+
+  // checks if the cell at index i is covered and not known either way
+  boolean isUnknown(int i) {
+    return !this.board.isRevealed(i) && !this.knownMine(i)
+        && (this.solver == null || !this.solver.isKnownSafe(i));
+  }
+
+  // returns the probability that each cell holds a mine: 0 for revealed and known safe
+  // cells, 1 for known mines, and the exact probability for every other covered cell
+  double[] compute() {
+    int n = this.board.cellCount();
+    double[] odds = new double[n];
+    int[] near = new int[8];
+
+    // find the frontier and the numbers that constrain it
+    int[] varOf = new int[n];
+    Arrays.fill(varOf, -1);
+    IntList frontier = new IntList();
+    IntList numbers = new IntList();
+    int minesLeft = this.board.mineCount();
+    int interior = 0;
+    for (int i = 0; i < n; i++) {
+      if (this.knownMine(i)) {
+        odds[i] = 1;
+        minesLeft--;
+      }
+      else if (this.board.isRevealed(i) && !this.board.containsMine(i)) {
+        int count = this.board.neighbors(i, near);
+        boolean constrains = false;
+        for (int k = 0; k < count; k++) {
+          int u = near[k];
+          if (this.isUnknown(u)) {
+            constrains = true;
+            if (varOf[u] < 0) {
+              varOf[u] = frontier.size;
+              frontier.add(u);
+            }
+          }
+        }
+        if (constrains) {
+          numbers.add(i);
+        }
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      if (this.isUnknown(i) && varOf[i] < 0) {
+        interior++;
+      }
+    }
+
+    // group the frontier into components that share a number
+    int[] parent = new int[frontier.size];
+    for (int v = 0; v < parent.length; v++) {
+      parent[v] = v;
+    }
+    for (int j = 0; j < numbers.size; j++) {
+      int count = this.board.neighbors(numbers.get(j), near);
+      int first = -1;
+      for (int k = 0; k < count; k++) {
+        if (varOf[near[k]] >= 0) {
+          if (first < 0) {
+            first = varOf[near[k]];
+          }
+          else {
+            parent[ProbabilityEngine.find(parent, varOf[near[k]])] =
+                ProbabilityEngine.find(parent, first);
+          }
+        }
+      }
+    }
+    HashMap<Integer, IntList> groups = new HashMap<Integer, IntList>();
+    for (int j = 0; j < numbers.size; j++) {
+      int count = this.board.neighbors(numbers.get(j), near);
+      for (int k = 0; k < count; k++) {
+        if (varOf[near[k]] >= 0) {
+          int root = ProbabilityEngine.find(parent, varOf[near[k]]);
+          groups.computeIfAbsent(root, r -> new IntList()).add(numbers.get(j));
+          break;
+        }
+      }
+    }
+
+    // enumerate or reuse every component
+    HashMap<ComponentKey, ComponentResult> seen = new HashMap<ComponentKey, ComponentResult>();
+    ArrayList<ComponentResult> results = new ArrayList<ComponentResult>();
+    this.enumerated = 0;
+    this.reused = 0;
+    for (IntList group : groups.values()) {
+      ComponentKey key = this.describe(group, varOf);
+      ComponentResult result = this.cache.get(key);
+      if (result == null) {
+        result = new ComponentResult(key);
+        this.enumerated++;
+      }
+      else {
+        this.reused++;
+      }
+      seen.put(key, result);
+      results.add(result);
+    }
+    this.cache = seen;
+
+    // combine the components: before[c] and after[c] are the distributions of mines over
+    // the components before and after c
+    int parts = results.size();
+    double[][] before = new double[parts + 1][];
+    double[][] after = new double[parts + 1][];
+    before[0] = new double[] { 1 };
+    after[parts] = new double[] { 1 };
+    for (int c = 0; c < parts; c++) {
+      before[c + 1] = ProbabilityEngine.convolve(before[c], results.get(c).ways);
+    }
+    for (int c = parts - 1; c >= 0; c--) {
+      after[c] = ProbabilityEngine.convolve(results.get(c).ways, after[c + 1]);
+    }
+    double[] weight = ProbabilityEngine.interiorWeights(interior, minesLeft,
+        before[parts].length - 1);
+
+    double total = 0;
+    double interiorMines = 0;
+    for (int k = 0; k < before[parts].length; k++) {
+      total += before[parts][k] * weight[k];
+      if (interior > 0) {
+        interiorMines += before[parts][k] * weight[k] * (minesLeft - k) / interior;
+      }
+    }
+
+    for (int c = 0; c < parts; c++) {
+      ComponentResult result = results.get(c);
+      double[] others = ProbabilityEngine.convolve(before[c], after[c + 1]);
+      // weight of the component holding k mines, summed over the rest of the board
+      double[] outside = new double[result.ways.length];
+      for (int k = 0; k < outside.length; k++) {
+        for (int o = 0; o < others.length; o++) {
+          outside[k] += others[o] * weight[k + o];
+        }
+      }
+      for (int v = 0; v < result.key.cells.length; v++) {
+        double p = 0;
+        for (int k = 0; k < outside.length; k++) {
+          p += result.mines[v][k] * outside[k];
+        }
+        odds[result.key.cells[v]] = p / total;
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      if (this.isUnknown(i) && varOf[i] < 0) {
+        odds[i] = interiorMines / total;
+      }
+    }
+    return odds;
+  }
+
+  // returns the root of v in the given union-find forest, halving the path to it
+  static int find(int[] parent, int v) {
+    while (parent[v] != v) {
+      parent[v] = parent[parent[v]];
+      v = parent[v];
+    }
+    return v;
+  }
+
+  // returns the distribution of the sum of two independent counts of mines
+  static double[] convolve(double[] a, double[] b) {
+    double[] sum = new double[a.length + b.length - 1];
+    for (int i = 0; i < a.length; i++) {
+      for (int j = 0; j < b.length; j++) {
+        sum[i + j] += a[i] * b[j];
+      }
+    }
+    return sum;
+  }
+
+  // returns, for each number k of mines on the frontier up to max, the number of ways the
+  // other minesLeft - k mines fit in the interior cells, scaled so that the largest is 1
+  static double[] interiorWeights(int interior, int minesLeft, int max) {
+    double[] logs = new double[max + 1];
+    double best = Double.NEGATIVE_INFINITY;
+    for (int k = 0; k <= max; k++) {
+      int rest = minesLeft - k;
+      logs[k] = rest < 0 || rest > interior ? Double.NEGATIVE_INFINITY
+          : ProbabilityEngine.logChoose(interior, rest);
+      best = Math.max(best, logs[k]);
+    }
+    double[] weight = new double[max + 1];
+    for (int k = 0; k <= max; k++) {
+      weight[k] = best == Double.NEGATIVE_INFINITY ? 0 : Math.exp(logs[k] - best);
+    }
+    return weight;
+  }
+
+  // returns the natural log of n choose k
+  static double logChoose(int n, int k) {
+    k = Math.min(k, n - k);
+    double sum = 0;
+    for (int j = 1; j <= k; j++) {
+      sum += Math.log(n - k + j) - Math.log(j);
+    }
+    return sum;
+  }
+
+  // describes the component made of the given numbers: its cells in the order they
+  // will be counted (each next to the ones before it, so numbers close early) and,
+  // for every number, how many mines it still needs and which of the cells it touches
+  ComponentKey describe(IntList group, int[] varOf) {
+    int[] near = new int[8];
+    HashMap<Integer, IntList> numbersOf = new HashMap<Integer, IntList>();
+    for (int j = 0; j < group.size; j++) {
+      int count = this.board.neighbors(group.get(j), near);
+      for (int k = 0; k < count; k++) {
+        if (varOf[near[k]] >= 0) {
+          numbersOf.computeIfAbsent(near[k], u -> new IntList()).add(group.get(j));
+        }
+      }
+    }
+
+    IntList order = new IntList();
+    HashMap<Integer, Integer> position = new HashMap<Integer, Integer>();
+    HashMap<Integer, Boolean> numberDone = new HashMap<Integer, Boolean>();
+    ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+    int start = numbersOf.keySet().stream().mapToInt(Integer::intValue).min().getAsInt();
+    queue.add(start);
+    position.put(start, 0);
+    while (!queue.isEmpty()) {
+      int u = queue.remove();
+      order.add(u);
+      IntList around = numbersOf.get(u);
+      for (int j = 0; j < around.size; j++) {
+        int number = around.get(j);
+        if (numberDone.put(number, true) == null) {
+          int count = this.board.neighbors(number, near);
+          for (int k = 0; k < count; k++) {
+            int w = near[k];
+            if (varOf[w] >= 0 && !position.containsKey(w)) {
+              position.put(w, position.size());
+              queue.add(w);
+            }
+          }
+        }
+      }
+    }
+
+    int[] cells = order.toArray();
+    for (int v = 0; v < cells.length; v++) {
+      position.put(cells[v], v);
+    }
+    int[] needs = new int[group.size];
+    int[][] touches = new int[group.size][];
+    for (int j = 0; j < group.size; j++) {
+      int number = group.get(j);
+      int count = this.board.neighbors(number, near);
+      IntList vars = new IntList(8);
+      needs[j] = this.board.numMines(number);
+      for (int k = 0; k < count; k++) {
+        if (varOf[near[k]] >= 0) {
+          vars.add(position.get(near[k]));
+        }
+        else if (this.knownMine(near[k])) {
+          needs[j]--;
+        }
+      }
+      touches[j] = vars.toArray();
+      Arrays.sort(touches[j]);
+    }
+    return new ComponentKey(cells, needs, touches);
+  }
+}
+
+// the cells and numbers of one frontier component, used to recognise a component that
+// hasn't changed since the last move
+class ComponentKey {
+  int[] cells;
+  int[] needs;
+  int[][] touches;
+  int hash;
+
+  ComponentKey(int[] cells, int[] needs, int[][] touches) {
+    this.cells = cells;
+    this.needs = needs;
+    this.touches = touches;
+    this.hash = 31 * (31 * Arrays.hashCode(cells) + Arrays.hashCode(needs))
+        + Arrays.deepHashCode(touches);
+  }
+
+  // checks if the given object describes the same component
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof ComponentKey)) {
+      return false;
+    }
+    ComponentKey that = (ComponentKey) other;
+    return this.hash == that.hash && Arrays.equals(this.cells, that.cells)
+        && Arrays.equals(this.needs, that.needs) && Arrays.deepEquals(this.touches, that.touches);
+  }
+
+  // returns the hash code of this component
+  @Override
+  public int hashCode() {
+    return this.hash;
+  }
+}
+
+// the configurations of one frontier component: ways[k] is the number of ways to place k
+// mines in it, and mines[v][k] how many of those put a mine on its cell v.
+// They are counted by dynamic programming over the cells in the order of the key rather
+// than by listing the configurations, which can be exponentially many on a long
+// frontier. After the cells before v are assigned, all that matters to the rest is how
+// many mines have been placed around the numbers still open at v, those that touch a
+// cell before v and one from v on, so assignments that agree on those counts are one
+// state. A forward pass counts, for every state, the ways to reach it with each number
+// of mines, and a backward pass the ways to finish from it, so the cost grows with the
+// number of states, which depends on how wide the frontier is, not on how many
+// configurations it has
+class ComponentResult {
+  ComponentKey key;
+  double[] ways;
+  double[][] mines;
+
+  ComponentResult(ComponentKey key) {
+    this.key = key;
+    int vars = key.cells.length;
+    int numbers = key.needs.length;
+    // the numbers next to each cell, and the numbers open at each position in the order
+    // of the cells
+    IntList[] numbersOf = new IntList[vars];
+    IntList[] opened = new IntList[vars + 1];
+    for (int v = 0; v <= vars; v++) {
+      opened[v] = new IntList(4);
+    }
+    for (int v = 0; v < vars; v++) {
+      numbersOf[v] = new IntList(4);
+    }
+    for (int j = 0; j < numbers; j++) {
+      int[] touches = key.touches[j];
+      for (int v : touches) {
+        numbersOf[v].add(j);
+      }
+      for (int v = touches[0] + 1; v <= touches[touches.length - 1]; v++) {
+        opened[v].add(j);
+      }
+    }
+
+    // forward pass: the states at each position, keyed by the mines around its open
+    // numbers, the ways to reach each with every number of mines, and the states each
+    // leads to with no mine and with a mine on the next cell (-1 if that breaks a number)
+    ArrayList<ArrayList<int[]>> states = new ArrayList<ArrayList<int[]>>();
+    ArrayList<ArrayList<double[]>> forward = new ArrayList<ArrayList<double[]>>();
+    int[][][] next = new int[vars][][];
+    states.add(new ArrayList<int[]>());
+    forward.add(new ArrayList<double[]>());
+    states.get(0).add(new int[0]);
+    forward.get(0).add(new double[] { 1 });
+    int[] placed = new int[numbers];
+    for (int v = 0; v < vars; v++) {
+      HashMap<ComponentState, Integer> seen = new HashMap<ComponentState, Integer>();
+      ArrayList<int[]> after = new ArrayList<int[]>();
+      ArrayList<double[]> reach = new ArrayList<double[]>();
+      next[v] = new int[states.get(v).size()][2];
+      for (int s = 0; s < states.get(v).size(); s++) {
+        int[] state = states.get(v).get(s);
+        for (int mine = 0; mine <= 1; mine++) {
+          for (int k = 0; k < state.length; k++) {
+            placed[opened[v].get(k)] = state[k];
+          }
+          boolean fits = true;
+          for (int k = 0; k < numbersOf[v].size; k++) {
+            int j = numbersOf[v].get(k);
+            if (key.touches[j][0] == v) {
+              placed[j] = 0;
+            }
+            placed[j] += mine;
+            fits = fits && placed[j] <= key.needs[j]
+                && placed[j] + ComponentResult.cellsAfter(key.touches[j], v) >= key.needs[j];
+          }
+          if (!fits) {
+            next[v][s][mine] = -1;
+            continue;
+          }
+          int[] target = new int[opened[v + 1].size];
+          for (int k = 0; k < target.length; k++) {
+            target[k] = placed[opened[v + 1].get(k)];
+          }
+          ComponentState id = new ComponentState(target);
+          Integer t = seen.get(id);
+          if (t == null) {
+            t = after.size();
+            seen.put(id, t);
+            after.add(target);
+            reach.add(new double[v + 2]);
+          }
+          next[v][s][mine] = t;
+          double[] from = forward.get(v).get(s);
+          double[] to = reach.get(t);
+          for (int k = 0; k < from.length; k++) {
+            to[k + mine] += from[k];
+          }
+        }
+      }
+      states.add(after);
+      forward.add(reach);
+    }
+
+    // backward pass: the ways to finish from each state with every number of mines
+    ArrayList<ArrayList<double[]>> backward = new ArrayList<ArrayList<double[]>>();
+    for (int v = 0; v <= vars; v++) {
+      backward.add(null);
+    }
+    ArrayList<double[]> end = new ArrayList<double[]>();
+    for (int s = 0; s < states.get(vars).size(); s++) {
+      end.add(new double[] { 1 });
+    }
+    backward.set(vars, end);
+    for (int v = vars - 1; v >= 0; v--) {
+      ArrayList<double[]> finish = new ArrayList<double[]>();
+      for (int s = 0; s < states.get(v).size(); s++) {
+        double[] ways = new double[vars - v + 1];
+        for (int mine = 0; mine <= 1; mine++) {
+          int t = next[v][s][mine];
+          if (t >= 0) {
+            double[] rest = backward.get(v + 1).get(t);
+            for (int k = 0; k < rest.length; k++) {
+              ways[k + mine] += rest[k];
+            }
+          }
+        }
+        finish.add(ways);
+      }
+      backward.set(v, finish);
+    }
+
+    // a mine on cell v is counted by every way to reach a state at v, put the mine there
+    // and finish
+    this.ways = backward.get(0).get(0);
+    this.mines = new double[vars][vars + 1];
+    for (int v = 0; v < vars; v++) {
+      for (int s = 0; s < states.get(v).size(); s++) {
+        int t = next[v][s][1];
+        if (t >= 0) {
+          double[] from = forward.get(v).get(s);
+          double[] rest = backward.get(v + 1).get(t);
+          for (int a = 0; a < from.length; a++) {
+            for (int b = 0; b < rest.length; b++) {
+              this.mines[v][a + 1 + b] += from[a] * rest[b];
+            }
+          }
+        }
+      }
+    }
+
+    int top = 0;
+    for (int k = 0; k < this.ways.length; k++) {
+      if (this.ways[k] > 0) {
+        top = k;
+      }
+    }
+    this.ways = Arrays.copyOf(this.ways, top + 1);
+    for (int v = 0; v < vars; v++) {
+      this.mines[v] = Arrays.copyOf(this.mines[v], top + 1);
+    }
+  }
+
+  // returns how many of the given sorted cells come after cell v
+  static int cellsAfter(int[] touches, int v) {
+    int count = 0;
+    for (int u : touches) {
+      if (u > v) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
+
+// the mines placed around the open numbers of a component partway through counting its
+// configurations, used to merge the assignments that reach the same counts
+class ComponentState {
+  int[] placed;
+  int hash;
+
+  ComponentState(int[] placed) {
+    this.placed = placed;
+    this.hash = Arrays.hashCode(placed);
+  }
+
+  // checks if the given object holds the same counts
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof ComponentState
+        && Arrays.equals(this.placed, ((ComponentState) other).placed);
+  }
+
+  // returns the hash code of the counts
+  @Override
+  public int hashCode() {
+    return this.hash;
+  }
+}
+
+// examples and tests for the probability engine
+class ExamplesProbabilityEngine {
+
+  // tests a 50/50 and a 1-2-1 pattern
+  void testProbabilityPatterns(Tester t) {
+    Board fifty = new Board(2, 2);
+    fifty.addAMine(0);
+    fifty.countAllMines();
+    Game g = new Game(fifty);
+    g.revealCell(2);
+    g.revealCell(3);
+    double[] odds = new ProbabilityEngine(g).compute();
+    t.checkInexact(odds[0], 0.5, 0.001);
+    t.checkInexact(odds[1], 0.5, 0.001);
+    t.checkExpect(odds[2], 0.0);
+
+    Board pattern = new Board(2, 3);
+    pattern.addAMine(0);
+    pattern.addAMine(2);
+    pattern.countAllMines();
+    Game h = new Game(pattern);
+    h.revealCell(3);
+    h.revealCell(4);
+    h.revealCell(5);
+    odds = new ProbabilityEngine(h).compute();
+    t.checkInexact(odds[0], 1.0, 0.001);
+    t.checkInexact(odds[1], 0.0, 0.001);
+    t.checkInexact(odds[2], 1.0, 0.001);
+  }
+
+  // tests the engine against counting every placement of the mines on small boards
+  void testProbabilityExact(Tester t) {
+    Random rand = new Random(12);
+    double worst = 0;
+    for (int round = 0; round < 40; round++) {
+      Game g = new Game(4, 5, 5, rand.nextLong(), true);
+      g.revealCell(rand.nextInt(20));
+      for (int extra = 0; extra < 2; extra++) {
+        int i = rand.nextInt(20);
+        if (!g.board.containsMine(i)) {
+          g.revealCell(i);
+        }
+      }
+      double[] odds = new ProbabilityEngine(g).compute();
+      double[] exact = ExamplesProbabilityEngine.bruteForce(g.board);
+      for (int i = 0; i < 20; i++) {
+        worst = Math.max(worst, Math.abs(odds[i] - exact[i]));
+      }
+    }
+    t.checkInexact(worst, 0.0, 0.000001);
+  }
+
+  // tests that components that didn't change are reused on the next call
+  void testProbabilityReuse(Tester t) {
+    Game g = new Game(16, 30, 99, 21L, true);
+    g.reveal(8, 15);
+    ProbabilityEngine engine = new ProbabilityEngine(g);
+    engine.compute();
+    int first = engine.enumerated;
+    engine.compute();
+    t.checkExpect(first > 0, true);
+    t.checkExpect(engine.enumerated, 0);
+    t.checkExpect(engine.reused, first);
+  }
+
+  // tests that a long frontier with a huge number of configurations is counted without
+  // listing them: a path of revealed cells winds across an expert board with covered
+  // cells on both sides, so every number has covered cells above and below it. The odds
+  // of all the cells must add up to the number of mines
+  void testProbabilityLongFrontier(Tester t) {
+    Board b = new Board(16, 30);
+    boolean[] path = new boolean[b.size];
+    for (int band = 0; band < 4; band++) {
+      int row = 4 * band + 1;
+      for (int column = 1; column < 29; column++) {
+        path[b.index(row, column)] = true;
+      }
+      int side = band % 2 == 0 ? 28 : 1;
+      for (int r = row; r < Math.min(row + 4, 15); r++) {
+        path[b.index(r, side)] = true;
+      }
+    }
+    Random rand = new Random(5);
+    while (b.mineCount() < 99) {
+      int i = rand.nextInt(b.size);
+      if (!path[i]) {
+        b.addAMine(i);
+      }
+    }
+    b.countAllMines();
+    for (int i = 0; i < b.size; i++) {
+      if (path[i]) {
+        Board.setBit(b.revealedBits, i);
+      }
+    }
+    Game g = new Game(b);
+
+    ProbabilityEngine engine = new ProbabilityEngine(g);
+    double[] odds = engine.compute();
+    ComponentResult result = engine.cache.values().iterator().next();
+    double configurations = 0;
+    for (double w : result.ways) {
+      configurations += w;
+    }
+    boolean valid = true;
+    double mines = 0;
+    for (int i = 0; i < b.size; i++) {
+      valid = valid && odds[i] >= 0 && odds[i] <= 1 + 1e-9 && (!path[i] || odds[i] == 0);
+      mines += odds[i];
+    }
+    t.checkExpect(engine.enumerated, 1);
+    t.checkExpect(result.key.cells.length > 150, true);
+    t.checkExpect(configurations > 1e12, true);
+    t.checkExpect(valid, true);
+    t.checkInexact(mines, 99.0, 0.000001);
+  }
+
+  // returns the probability of a mine in each cell by trying every placement of the
+  // mines on the covered cells that agrees with the revealed numbers
+  static double[] bruteForce(IBoard b) {
+    int n = b.cellCount();
+    IntList covered = new IntList();
+    for (int i = 0; i < n; i++) {
+      if (!b.isRevealed(i)) {
+        covered.add(i);
+      }
+    }
+    double[] hits = new double[n];
+    double total = 0;
+    int[] near = new int[8];
+    for (int mask = 0; mask < 1 << covered.size; mask++) {
+      if (Integer.bitCount(mask) != b.mineCount()) {
+        continue;
+      }
+      boolean[] mine = new boolean[n];
+      for (int k = 0; k < covered.size; k++) {
+        mine[covered.get(k)] = (mask & (1 << k)) != 0;
+      }
+      boolean fits = true;
+      for (int i = 0; i < n && fits; i++) {
+        if (b.isRevealed(i)) {
+          int count = b.neighbors(i, near);
+          int around = 0;
+          for (int k = 0; k < count; k++) {
+            around += mine[near[k]] ? 1 : 0;
+          }
+          fits = around == b.numMines(i);
+        }
+      }
+      if (fits) {
+        total++;
+        for (int i = 0; i < n; i++) {
+          hits[i] += mine[i] ? 1 : 0;
+        }
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      hits[i] /= total;
+    }
+    return hits;
+  }
+}
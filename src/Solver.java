@@ -0,0 +1,356 @@
+import java.util.Arrays;
+
+import tester.Tester;
+
+// Deduces safe cells and mines of a Game from what a player can see: which cells are
+// revealed and the numbers on them. A revealed number constrains its covered neighbours
+// that aren't known yet; the solver applies the single-cell rules (no mines left means
+// every unknown neighbour is safe, as many mines left as unknowns means they are all
+// mines) and the subset rule (when one cell's unknowns are a subset of a nearby cell's,
+// the difference holds the difference of their mines), and once every mine has been
+// found it marks the remaining cells safe. It is incremental: only the revealed cells
+// around a reveal or a deduction are queued to be examined again, so the work per move
+// does not grow with the board
+class Solver {
+  Game game;
+  IBoard board;
+  // cells deduced to hold a mine
+  long[] knownMines;
+  // cells deduced to be safe
+  long[] knownSafe;
+  // number of cells deduced to hold a mine
+  int minesFound;
+  // cells deduced to be safe that may still be covered, in the order they were found
+  IntList safe;
+  // revealed cells whose constraint has to be examined, and a bit set of the same cells
+  IntList work;
+  long[] queued;
+  // scratch space for the unknown neighbours of the two cells being compared
+  int[] around;
+  int[] mine;
+  int[] other;
+
+  Solver(Game game) {
+    this.game = game;
+    this.board = game.board;
+    this.knownMines = new long[Board.words(this.board.cellCount())];
+    this.knownSafe = new long[Board.words(this.board.cellCount())];
+    this.minesFound = 0;
+    this.safe = new IntList();
+    this.work = new IntList();
+    this.queued = new long[Board.words(this.board.cellCount())];
+    this.around = new int[8];
+    this.mine = new int[8];
+    this.other = new int[8];
+    for (int i = 0; i < this.board.cellCount(); i++) {
+      this.enqueue(i);
+    }
+  }
+
+  // checks if the cell at index i has been deduced to hold a mine
+  boolean isKnownMine(int i) {
+    return Board.getBit(this.knownMines, i);
+  }
+
+  // checks if the cell at index i has been deduced to be safe
+  boolean isKnownSafe(int i) {
+    return Board.getBit(this.knownSafe, i);
+  }
+
+  // checks if the cell at index i is covered and hasn't been deduced either way
+  boolean isUnknown(int i) {
+    return !this.board.isRevealed(i) && !this.isKnownMine(i) && !this.isKnownSafe(i);
+  }
+
+  // queues the cell at index i to be examined if it is a revealed number
+  void enqueue(int i) {
+    if (this.board.isRevealed(i) && !this.board.containsMine(i) && this.board.numMines(i) > 0
+        && !Board.getBit(this.queued, i)) {
+      Board.setBit(this.queued, i);
+      this.work.add(i);
+    }
+  }
+
+  // queues the cell at index i and its neighbours to be examined
+  void touch(int i) {
+    int[] near = new int[8];
+    int n = this.board.neighbors(i, near);
+    this.enqueue(i);
+    for (int k = 0; k < n; k++) {
+      this.enqueue(near[k]);
+    }
+  }
+
+  // queues the cells around every cell in the given delta of a move
+  void observe(IntList delta) {
+    for (int k = 0; k < delta.size; k++) {
+      this.touch(delta.get(k));
+    }
+  }
+
+  // records that the cell at index i is safe
+  void markSafe(int i) {
+    if (!this.isKnownSafe(i)) {
+      Board.setBit(this.knownSafe, i);
+      this.safe.add(i);
+      this.touch(i);
+    }
+  }
+
+  // records that the cell at index i holds a mine
+  void markMine(int i) {
+    if (!this.isKnownMine(i)) {
+      Board.setBit(this.knownMines, i);
+      this.minesFound++;
+      this.touch(i);
+    }
+  }
+
+  // writes the unknown neighbours of the revealed cell at index i into out and returns
+  // how many there are
+  int unknowns(int i, int[] out) {
+    int[] near = new int[8];
+    int n = this.board.neighbors(i, near);
+    int count = 0;
+    for (int k = 0; k < n; k++) {
+      if (this.isUnknown(near[k])) {
+        out[count] = near[k];
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // returns the number of mines around the revealed cell at index i that haven't been
+  // deduced yet
+  int remaining(int i) {
+    int n = this.board.neighbors(i, this.around);
+    int count = this.board.numMines(i);
+    for (int k = 0; k < n; k++) {
+      if (this.isKnownMine(this.around[k])) {
+        count--;
+      }
+    }
+    return count;
+  }
+
+  // checks if the first n cells of small are all among the first m cells of big
+  static boolean subset(int[] small, int n, int[] big, int m) {
+    for (int a = 0; a < n; a++) {
+      boolean found = false;
+      for (int b = 0; b < m && !found; b++) {
+        found = small[a] == big[b];
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // applies the subset rule to the difference between big and small when small is a
+  // subset of big holding extra fewer mines, returning whether anything was deduced
+  boolean applySubset(int[] small, int n, int[] big, int m, int extra) {
+    if (extra != 0 && extra != m - n) {
+      return false;
+    }
+    for (int b = 0; b < m; b++) {
+      boolean shared = false;
+      for (int a = 0; a < n && !shared; a++) {
+        shared = small[a] == big[b];
+      }
+      if (!shared) {
+        if (extra == 0) {
+          this.markSafe(big[b]);
+        }
+        else {
+          this.markMine(big[b]);
+        }
+      }
+    }
+    return true;
+  }
+
+  // examines the queued cells until nothing more follows from them
+  void propagate() {
+    while (!this.work.isEmpty()) {
+      int c = this.work.pop();
+      Board.clearBit(this.queued, c);
+      this.examine(c);
+    }
+  }
+
+  // applies the single-cell rules to the revealed cell at index c, then the subset rule
+  // against every revealed cell that shares one of its unknown neighbours
+  void examine(int c) {
+    int n = this.unknowns(c, this.mine);
+    if (n == 0) {
+      return;
+    }
+    int r = this.remaining(c);
+    if (r == 0 || r == n) {
+      for (int k = 0; k < n; k++) {
+        if (r == 0) {
+          this.markSafe(this.mine[k]);
+        }
+        else {
+          this.markMine(this.mine[k]);
+        }
+      }
+      return;
+    }
+
+    int[] mineCopy = Arrays.copyOf(this.mine, n);
+    int[] near = new int[8];
+    for (int k = 0; k < n; k++) {
+      int u = mineCopy[k];
+      int count = this.board.neighbors(u, near);
+      for (int j = 0; j < count; j++) {
+        int d = near[j];
+        if (d == c || !this.board.isRevealed(d) || this.board.containsMine(d)
+            || this.board.numMines(d) == 0) {
+          continue;
+        }
+        int m = this.unknowns(d, this.other);
+        int rd = this.remaining(d);
+        boolean deduced = false;
+        if (m > n && Solver.subset(mineCopy, n, this.other, m)) {
+          deduced = this.applySubset(mineCopy, n, this.other, m, rd - r);
+        }
+        else if (m < n && m > 0 && Solver.subset(this.other, m, mineCopy, n)) {
+          deduced = this.applySubset(this.other, m, mineCopy, n, r - rd);
+        }
+        if (deduced) {
+          return;
+        }
+      }
+    }
+  }
+
+  // returns a covered cell that has been deduced to be safe, or -1 if there is none
+  int nextSafe() {
+    while (!this.safe.isEmpty()) {
+      int i = this.safe.get(this.safe.size - 1);
+      if (!this.board.isRevealed(i)) {
+        return i;
+      }
+      this.safe.pop();
+    }
+    return -1;
+  }
+
+  // reveals the cell at index i through the game and examines the cells it changed,
+  // returning how many cells were revealed
+  int reveal(int i) {
+    if (this.board.isFlagged(i)) {
+      this.game.flagCell(i);
+    }
+    int count = this.game.revealCell(i);
+    this.observe(this.game.delta);
+    this.propagate();
+    return count;
+  }
+
+  // marks every unknown cell safe once all the mines on the board have been found.
+  // This looks at the whole board, so it is only done when the local rules are stuck.
+  // Until the first reveal places the mines of a first-click-safe game the board holds
+  // none, so nothing is marked then
+  void applyMineCount() {
+    if (!this.game.minesPending && this.minesFound == this.board.mineCount()) {
+      for (int i = 0; i < this.board.cellCount(); i++) {
+        if (this.isUnknown(i)) {
+          this.markSafe(i);
+        }
+      }
+    }
+  }
+
+  // reveals one cell that has been deduced to be safe, returning how many cells were
+  // revealed, or -1 if no safe cell is known
+  int step() {
+    this.propagate();
+    int i = this.nextSafe();
+    if (i < 0) {
+      this.applyMineCount();
+      i = this.nextSafe();
+    }
+    if (i < 0) {
+      return -1;
+    }
+    return this.reveal(i);
+  }
+
+  // reveals deduced safe cells until the game ends or nothing more can be deduced, and
+  // returns how many moves it made
+  int solve() {
+    int moves = 0;
+    while (this.game.status() == GameStatus.PLAYING && this.step() >= 0) {
+      moves++;
+    }
+    return moves;
+  }
+}
+
+// examples and tests for the solver
+class ExamplesSolver {
+
+  // tests the subset rule on a 1-2-1 pattern under two mines
+  void testSolverOneTwoOne(Tester t) {
+    Board b = new Board(2, 3);
+    b.addAMine(0);
+    b.addAMine(2);
+    b.countAllMines();
+    Game g = new Game(b);
+    g.revealCell(3);
+    g.revealCell(4);
+    g.revealCell(5);
+
+    Solver s = new Solver(g);
+    s.propagate();
+    t.checkExpect(s.isKnownMine(0), true);
+    t.checkExpect(s.isKnownMine(2), true);
+    t.checkExpect(s.isKnownSafe(1), true);
+    t.checkExpect(s.nextSafe(), 1);
+    t.checkExpect(s.solve(), 1);
+    t.checkExpect(g.status(), GameStatus.WON);
+  }
+
+  // tests that the solver never reveals a mine or marks a safe cell as one on expert
+  // boards
+  void testSolverSound(Tester t) {
+    boolean sound = true;
+    for (long seed = 0; seed < 40; seed++) {
+      Game g = new Game(16, 30, 99, seed, true);
+      Solver s = new Solver(g);
+      s.reveal(g.board.index(8, 15));
+      s.solve();
+      Board b = (Board) g.board;
+      for (int i = 0; i < b.size; i++) {
+        sound = sound && (!s.isKnownMine(i) || b.containsMine(i))
+            && (!s.isKnownSafe(i) || !b.containsMine(i));
+      }
+      sound = sound && g.status() != GameStatus.LOST && s.work.isEmpty();
+    }
+    t.checkExpect(sound, true);
+  }
+
+  // tests that stepping before the first reveal of a first-click-safe game deduces
+  // nothing, and that the game can still be solved soundly from its first reveal
+  void testSolverBeforeFirstReveal(Tester t) {
+    boolean sound = true;
+    for (long seed = 0; seed < 200; seed++) {
+      Game g = new Game(9, 9, 10, seed, true);
+      Solver s = new Solver(g);
+      for (int k = 0; k < 5; k++) {
+        sound = sound && s.step() == -1;
+      }
+      for (int i = 0; i < g.board.cellCount(); i++) {
+        sound = sound && s.isUnknown(i) && !g.board.isRevealed(i);
+      }
+      s.reveal(g.board.index(4, 4));
+      s.solve();
+      sound = sound && g.status() != GameStatus.LOST;
+    }
+    t.checkExpect(sound, true);
+  }
+}
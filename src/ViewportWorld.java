@@ -0,0 +1,386 @@
+import java.awt.Color;
+import java.util.ArrayList;
+
+import javalib.impworld.World;
+import javalib.impworld.WorldScene;
+import javalib.worldimages.CircleImage;
+import javalib.worldimages.EquilateralTriangleImage;
+import javalib.worldimages.OutlineMode;
+import javalib.worldimages.OverlayImage;
+import javalib.worldimages.Posn;
+import javalib.worldimages.RectangleImage;
+import javalib.worldimages.TextImage;
+import javalib.worldimages.WorldImage;
+import tester.Tester;
+
+// the shared tiles for drawing cells at one tile size, built once per size like the
+// tile atlas in IUtils, which is reused as is at IUtils.CELL_SIZE
+class TileAtlas {
+  int size;
+  WorldImage covered;
+  WorldImage flagged;
+  WorldImage mine;
+  WorldImage exploded;
+  // revealed cells without a mine, indexed by their number of adjacent mines
+  ArrayList<WorldImage> numbers;
+
+  TileAtlas(int size) {
+    this.size = size;
+    this.numbers = new ArrayList<WorldImage>();
+    if (size == IUtils.CELL_SIZE) {
+      this.covered = IUtils.CELL_COVERED;
+      this.flagged = IUtils.CELL_FLAGGED;
+      this.mine = IUtils.CELL_MINE;
+      this.exploded = IUtils.CELL_EXPLODED;
+      this.numbers.addAll(IUtils.CELL_NUMBERS);
+      return;
+    }
+
+    WorldImage revealed = TileAtlas.square(size, IUtils.CELL_COLOR_REVEALED,
+        new Color(224, 193, 171));
+    WorldImage mine = new CircleImage(Math.max(15 * size / IUtils.CELL_SIZE, 1),
+        OutlineMode.SOLID, Color.RED);
+    this.covered = TileAtlas.square(size, IUtils.CELL_COLOR_COVERED, new Color(144, 173, 94));
+    this.flagged = new OverlayImage(new EquilateralTriangleImage(
+        Math.max(20.0 * size / IUtils.CELL_SIZE, 2), OutlineMode.SOLID, Color.ORANGE),
+        this.covered);
+    this.mine = new OverlayImage(mine, revealed);
+    this.exploded = new OverlayImage(mine, TileAtlas.square(size, new Color(120, 20, 20),
+        new Color(224, 193, 171)));
+    this.numbers.add(revealed);
+    for (int n = 1; n <= 8; n++) {
+      this.numbers.add(new OverlayImage(new TextImage(Integer.toString(n),
+          Math.max(13.0 * size / IUtils.CELL_SIZE, 6), IUtils.NUM_COLORS.get(n - 1)), revealed));
+    }
+  }
+
+  // returns a square tile of the given size, filled with the given colour inside a
+  // border of the other
+  static WorldImage square(int size, Color inside, Color border) {
+    return new OverlayImage(
+        new RectangleImage(Math.max(size - 2, 1), Math.max(size - 2, 1), OutlineMode.SOLID,
+            inside),
+        new RectangleImage(size, size, OutlineMode.SOLID, border));
+  }
+
+  // returns the tile of the cell at index i of the given board, showing every mine when
+  // showMines is set and the mine that went off when i is exploded
+  WorldImage tile(IBoard board, int i, boolean showMines, int exploded) {
+    if (i == exploded) {
+      return this.exploded;
+    }
+    else if (board.isRevealed(i) || (showMines && board.containsMine(i))) {
+      return board.containsMine(i) ? this.mine : this.numbers.get(board.numMines(i));
+    }
+    else if (board.isFlagged(i)) {
+      return this.flagged;
+    }
+    else {
+      return this.covered;
+    }
+  }
+}
+
+// A World that plays a headless Game of any size through a window onto part of its
+// board. Only the cells inside the window are drawn, so a frame costs as much as the
+// window holds whatever the size of the board, and a frame with nothing changed since
+// the last one costs nothing. The window is scrolled with the arrow keys or by dragging
+// with the mouse, and zoomed in and out with + and - between tile sizes, keeping the
+// cell in the middle of the window where it is. Moves are made by clicking as in
+// Minesweeper (left reveals, right flags, middle chords), and u and r undo and redo them
+class ViewportWorld extends World {
+  // the tile sizes of the zoom levels, in pixels
+  static final int[] ZOOMS = { 10, 20, 30, IUtils.CELL_SIZE };
+
+  Game game;
+  // size of the window in pixels
+  int width;
+  int height;
+  // index into ZOOMS of the current tile size, and the atlas of each size once used
+  int zoom;
+  TileAtlas[] atlases;
+  // position in pixels, at the current tile size, of the top left corner of the window
+  // on the board
+  int offsetX;
+  int offsetY;
+  // where the mouse was pressed, while it is down
+  Posn pressed;
+  // the mine that went off, or -1
+  int exploded;
+  // the last frame, and whether anything has changed since it was drawn
+  WorldScene scene;
+  boolean changed;
+  // number of tiles drawn in the last frame
+  int drawn;
+
+  ViewportWorld(Game game, int width, int height) {
+    this.game = game;
+    this.width = new Utils().checkRange(width, 0, 10000, "Invalid Window Size");
+    this.height = new Utils().checkRange(height, 0, 10000, "Invalid Window Size");
+    this.zoom = ZOOMS.length - 1;
+    this.atlases = new TileAtlas[ZOOMS.length];
+    this.offsetX = 0;
+    this.offsetY = 0;
+    this.pressed = null;
+    this.exploded = -1;
+    this.scene = null;
+    this.changed = true;
+    this.drawn = 0;
+    this.game.startJournal();
+  }
+
+  // returns the current tile size in pixels
+  int tileSize() {
+    return ZOOMS[this.zoom];
+  }
+
+  // returns the atlas of the current tile size
+  TileAtlas atlas() {
+    if (this.atlases[this.zoom] == null) {
+      this.atlases[this.zoom] = new TileAtlas(this.tileSize());
+    }
+    return this.atlases[this.zoom];
+  }
+
+  // scrolls the window by the given number of pixels, keeping it on the board
+  void scroll(int dx, int dy) {
+    int tile = this.tileSize();
+    int maxX = Math.max(this.game.board.columnCount() * tile - this.width, 0);
+    int maxY = Math.max(this.game.board.rowCount() * tile - this.height, 0);
+    this.offsetX = Math.min(Math.max(this.offsetX + dx, 0), maxX);
+    this.offsetY = Math.min(Math.max(this.offsetY + dy, 0), maxY);
+    this.changed = true;
+  }
+
+  // scrolls the window so the cell at the given row and column is in the middle of it,
+  // or as near as the edges of the board allow
+  void centerOn(int row, int column) {
+    int tile = this.tileSize();
+    this.offsetX = column * tile + tile / 2 - this.width / 2;
+    this.offsetY = row * tile + tile / 2 - this.height / 2;
+    this.scroll(0, 0);
+  }
+
+  // changes to the zoom level given, keeping the point in the middle of the window over
+  // the same place on the board
+  void zoomTo(int level) {
+    if (level < 0 || level >= ZOOMS.length || level == this.zoom) {
+      return;
+    }
+    long centerX = (long) (this.offsetX + this.width / 2) * ZOOMS[level] / this.tileSize();
+    long centerY = (long) (this.offsetY + this.height / 2) * ZOOMS[level] / this.tileSize();
+    this.zoom = level;
+    this.offsetX = (int) centerX - this.width / 2;
+    this.offsetY = (int) centerY - this.height / 2;
+    this.scroll(0, 0);
+  }
+
+  // draws the cells inside the window, or returns the last frame if nothing changed
+  @Override
+  public WorldScene makeScene() {
+    if (!this.changed) {
+      return this.scene;
+    }
+    long start = Metrics.start();
+    this.scene = this.drawWindow(false);
+    this.changed = false;
+    Metrics.recordFrame(start, this.drawn);
+    return this.scene;
+  }
+
+  // draws the cells inside the window onto a new scene, showing every mine when
+  // showMines is set
+  WorldScene drawWindow(boolean showMines) {
+    WorldScene w = new WorldScene(this.width, this.height);
+    IBoard board = this.game.board;
+    TileAtlas atlas = this.atlas();
+    int tile = this.tileSize();
+    int lastRow = Math.min((this.offsetY + this.height - 1) / tile, board.rowCount() - 1);
+    int lastColumn = Math.min((this.offsetX + this.width - 1) / tile,
+        board.columnCount() - 1);
+    this.drawn = 0;
+    for (int r = this.offsetY / tile; r <= lastRow; r++) {
+      for (int c = this.offsetX / tile; c <= lastColumn; c++) {
+        w.placeImageXY(atlas.tile(board, board.index(r, c), showMines, this.exploded),
+            c * tile - this.offsetX + tile / 2, r * tile - this.offsetY + tile / 2);
+        this.drawn++;
+      }
+    }
+    return w;
+  }
+
+  // makes the move of the button clicked on the cell under the mouse, if there is one
+  @Override
+  public void onMouseClicked(Posn posn, String key) {
+    long start = Metrics.start();
+    long allocated = Metrics.allocated();
+    IBoard board = this.game.board;
+    int row = (posn.y + this.offsetY) / this.tileSize();
+    int column = (posn.x + this.offsetX) / this.tileSize();
+    if (posn.x < 0 || posn.y < 0 || row >= board.rowCount() || column >= board.columnCount()) {
+      return;
+    }
+
+    if (key.equals("LeftButton")) {
+      this.game.reveal(row, column);
+    }
+    else if (key.equals("RightButton")) {
+      this.game.flag(row, column);
+    }
+    else if (key.equals("MiddleButton")) {
+      this.game.chord(row, column);
+    }
+    this.changed = true;
+    this.checkEnd();
+    Metrics.recordClick(start, allocated);
+  }
+
+  // ends the game if the last move won or lost it
+  void checkEnd() {
+    if (this.game.status() == GameStatus.LOST) {
+      for (int k = 0; k < this.game.delta.size && this.exploded < 0; k++) {
+        if (this.game.board.containsMine(this.game.delta.get(k))) {
+          this.exploded = this.game.delta.get(k);
+        }
+      }
+      this.endOfWorld("you lost!");
+    }
+    else if (this.game.status() == GameStatus.WON) {
+      this.endOfWorld("you won!");
+    }
+  }
+
+  // scrolls by a quarter of the window with the arrow keys, zooms with + and -, and
+  // undoes and redoes moves with u and r
+  @Override
+  public void onKeyEvent(String key) {
+    if (key.equals("left")) {
+      this.scroll(-this.width / 4, 0);
+    }
+    else if (key.equals("right")) {
+      this.scroll(this.width / 4, 0);
+    }
+    else if (key.equals("up")) {
+      this.scroll(0, -this.height / 4);
+    }
+    else if (key.equals("down")) {
+      this.scroll(0, this.height / 4);
+    }
+    else if (key.equals("+") || key.equals("=")) {
+      this.zoomTo(this.zoom + 1);
+    }
+    else if (key.equals("-")) {
+      this.zoomTo(this.zoom - 1);
+    }
+    else if (key.equals("u")) {
+      this.changed = this.game.undo() || this.changed;
+    }
+    else if (key.equals("r")) {
+      this.changed = this.game.redo() || this.changed;
+    }
+  }
+
+  // remembers where a drag may start
+  @Override
+  public void onMousePressed(Posn posn) {
+    this.pressed = posn;
+  }
+
+  // scrolls the board along with the mouse if it was dragged since it was pressed; a
+  // press and release in the same place is a click instead
+  @Override
+  public void onMouseReleased(Posn posn) {
+    if (this.pressed != null && (this.pressed.x != posn.x || this.pressed.y != posn.y)) {
+      this.scroll(this.pressed.x - posn.x, this.pressed.y - posn.y);
+    }
+    this.pressed = null;
+  }
+
+  // draws the window with every mine shown and the given message over it
+  @Override
+  public WorldScene lastScene(String msg) {
+    WorldScene w = this.drawWindow(msg.equals("you lost!"));
+    w.placeImageXY(new OverlayImage(new TextImage(msg, IUtils.CELL_SIZE, Color.BLACK),
+        new RectangleImage(IUtils.CELL_SIZE * 5, IUtils.CELL_SIZE, OutlineMode.SOLID,
+            Color.WHITE)), this.width / 2, this.height / 2);
+    return w;
+  }
+
+  // plays a first-click-safe game on a 2000x2000 board in an 800x600 window, counting
+  // adjacent mines only as cells are opened
+  public static void main(String[] args) {
+    Game game = new Game(new LazyBoard(2000, 2000), 2000 * 2000 / 6, System.nanoTime(),
+        true);
+    new ViewportWorld(game, 800, 600).bigBang(800, 600);
+  }
+}
+
+// examples and tests for the viewport world
+class ExamplesViewportWorld {
+
+  // tests that a frame draws the cells in the window, whatever the size of the board
+  void testViewportCulling(Tester t) {
+    ViewportWorld big = new ViewportWorld(new Game(2000, 2000, 100000, 1L, true), 800, 600);
+    WorldScene first = big.makeScene();
+    t.checkExpect(big.drawn, 16 * 12);
+    t.checkExpect(big.makeScene() == first, true);
+    big.scroll(25, 25);
+    big.makeScene();
+    t.checkExpect(big.drawn, 17 * 13);
+    big.zoomTo(0);
+    big.makeScene();
+    t.checkExpect(big.drawn, 80 * 60);
+
+    ViewportWorld small = new ViewportWorld(new Game(4, 5, 2, 1L, true), 800, 600);
+    small.makeScene();
+    t.checkExpect(small.drawn, 20);
+    t.checkConstructorException(new IllegalArgumentException("Invalid Window Size"),
+        "ViewportWorld", new Game(4, 5, 2, 1L, true), 0, 600);
+  }
+
+  // tests scrolling with the keys and by dragging, and zooming around the middle
+  void testViewportScroll(Tester t) {
+    ViewportWorld v = new ViewportWorld(new Game(100, 100, 10, 1L, true), 800, 600);
+    v.onKeyEvent("left");
+    t.checkExpect(v.offsetX, 0);
+    v.onKeyEvent("right");
+    v.onKeyEvent("down");
+    t.checkExpect(new Posn(v.offsetX, v.offsetY), new Posn(200, 150));
+    v.onMousePressed(new Posn(400, 300));
+    v.onMouseReleased(new Posn(300, 350));
+    t.checkExpect(new Posn(v.offsetX, v.offsetY), new Posn(300, 100));
+    v.onKeyEvent("-");
+    t.checkExpect(v.tileSize(), 30);
+    t.checkExpect(new Posn(v.offsetX, v.offsetY), new Posn(20, 0));
+    v.onKeyEvent("+");
+    t.checkExpect(v.tileSize(), 50);
+    v.onKeyEvent("+");
+    t.checkExpect(v.tileSize(), 50);
+    v.scroll(100000, 100000);
+    t.checkExpect(new Posn(v.offsetX, v.offsetY), new Posn(4200, 4400));
+  }
+
+  // tests that clicks land on the cell under the mouse wherever the window is
+  void testViewportClicks(Tester t) {
+    Game game = new Game(new Board(30, 40));
+    game.placeMines(new int[] { 0 });
+    ViewportWorld v = new ViewportWorld(game, 200, 100);
+    v.scroll(1000, 1000);
+    v.onMouseClicked(new Posn(40, 60), "RightButton");
+    t.checkExpect(game.board.isFlagged(game.board.index(21, 20)), true);
+    v.onKeyEvent("u");
+    t.checkExpect(game.board.isFlagged(game.board.index(21, 20)), false);
+    v.onMouseClicked(new Posn(-5, 60), "LeftButton");
+    t.checkExpect(game.status(), GameStatus.PLAYING);
+    v.onMouseClicked(new Posn(40, 60), "LeftButton");
+    t.checkExpect(game.status(), GameStatus.WON);
+    t.checkExpect(v.endMsg, "you won!");
+
+    Game lose = new Game(new Board(3, 3));
+    lose.placeMines(new int[] { 4 });
+    ViewportWorld w = new ViewportWorld(lose, 150, 150);
+    w.onMouseClicked(new Posn(75, 75), "LeftButton");
+    t.checkExpect(w.exploded, 4);
+    t.checkExpect(w.atlas().tile(lose.board, 4, true, w.exploded), IUtils.CELL_EXPLODED);
+  }
+}
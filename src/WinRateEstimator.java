@@ -0,0 +1,183 @@
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import tester.Tester;
+
+// the totals of a batch of games played by the WinRateEstimator
+class Tally {
+  int games;
+  int wins;
+  long guesses;
+  // number of reveals made and cells they opened
+  long reveals;
+  long cells;
+
+  // adds one finished game to this tally
+  void add(Game game, int guesses, long reveals, long cells) {
+    this.games++;
+    this.wins += game.status() == GameStatus.WON ? 1 : 0;
+    this.guesses += guesses;
+    this.reveals += reveals;
+    this.cells += cells;
+  }
+
+  // adds the totals of the given tally to this one
+  void merge(Tally other) {
+    this.games += other.games;
+    this.wins += other.wins;
+    this.guesses += other.guesses;
+    this.reveals += other.reveals;
+    this.cells += other.cells;
+  }
+
+  // returns the fraction of games won
+  double winRate() {
+    return this.games == 0 ? 0 : (double) this.wins / this.games;
+  }
+
+  // returns the average number of guesses per game
+  double guessesPerGame() {
+    return this.games == 0 ? 0 : (double) this.guesses / this.games;
+  }
+
+  // returns the average number of cells opened by a reveal
+  double floodSize() {
+    return this.reveals == 0 ? 0 : (double) this.cells / this.reveals;
+  }
+}
+
+// Estimates how hard a board size and mine count are by playing many seeded games with
+// an automatic strategy: the Solver reveals every cell it can deduce, and when it is
+// stuck the covered cell least likely to hold a mine, by the ProbabilityEngine, is
+// revealed as a guess. Games are spread over the fork-join pool with a parallel stream;
+// each game draws its mines and breaks ties between guesses with random number
+// generators seeded from its own number, so the results depend only on the seed of the
+// batch and not on how the games are split between workers
+class WinRateEstimator {
+  int rows;
+  int columns;
+  int mines;
+
+  WinRateEstimator(int rows, int columns, int mines) {
+    this.rows = new Utils().checkRange(rows, 0, Board.MAX_CELLS, "Invalid Number of Rows");
+    this.columns = new Utils().checkRange(columns, 0, Board.MAX_CELLS / rows,
+        "Invalid Number of Columns");
+    this.mines = new Utils().checkRange(mines, -1, rows * columns - 1,
+        "Invalid Number of Mines");
+  }
+
+  // returns the seed of the game with the given number in the batch with the given seed
+  static long gameSeed(long seed, int game) {
+    return ChunkedBoard.mix(seed + (game + 1) * 0x9E3779B97F4A7C15L);
+  }
+
+  // plays the given number of games of the batch with the given seed, in parallel when
+  // parallel is set, and returns their totals
+  Tally estimate(int games, long seed, boolean parallel) {
+    IntStream numbers = IntStream.range(0, games);
+    if (parallel) {
+      numbers = numbers.parallel();
+    }
+    return numbers.collect(Tally::new,
+        (tally, game) -> this.play(WinRateEstimator.gameSeed(seed, game), tally),
+        Tally::merge);
+  }
+
+  // plays one game from the given seed, starting in the middle of the board, and adds
+  // it to the given tally
+  void play(long seed, Tally tally) {
+    Game game = new Game(new PaddedBoard(this.rows, this.columns), this.mines, seed, true);
+    Solver solver = new Solver(game);
+    ProbabilityEngine engine = new ProbabilityEngine(game, solver);
+    Random rand = new Random(seed);
+    int guesses = 0;
+    long reveals = 1;
+    long cells = solver.reveal(game.board.index(this.rows / 2, this.columns / 2));
+    while (game.status() == GameStatus.PLAYING) {
+      int opened = solver.step();
+      if (opened < 0) {
+        opened = solver.reveal(WinRateEstimator.safest(engine, rand));
+        guesses++;
+      }
+      reveals++;
+      cells += opened;
+    }
+    tally.add(game, guesses, reveals, cells);
+  }
+
+  // returns the covered cell least likely to hold a mine, choosing at random between
+  // cells that are equally likely
+  static int safest(ProbabilityEngine engine, Random rand) {
+    double[] odds = engine.compute();
+    int best = -1;
+    int ties = 0;
+    for (int i = 0; i < odds.length; i++) {
+      if (!engine.isUnknown(i)) {
+        continue;
+      }
+      if (best < 0 || odds[i] < odds[best] - 1e-12) {
+        best = i;
+        ties = 1;
+      }
+      else if (Math.abs(odds[i] - odds[best]) <= 1e-12) {
+        ties++;
+        if (rand.nextInt(ties) == 0) {
+          best = i;
+        }
+      }
+    }
+    return best;
+  }
+
+  // plays the given number of games for every board size and mine density given and
+  // prints one line of results for each
+  static void sweep(int[][] sizes, double[] densities, int games, long seed) {
+    System.out.println("rows cols mines  win%  guesses  flood  games/s");
+    for (int[] size : sizes) {
+      for (double density : densities) {
+        int mines = (int) Math.round(size[0] * size[1] * density);
+        long start = System.nanoTime();
+        Tally tally = new WinRateEstimator(size[0], size[1], mines).estimate(games, seed, true);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format(Locale.ROOT, "%4d %4d %5d %5.1f %8.2f %6.2f %8.0f",
+            size[0], size[1], mines, 100 * tally.winRate(), tally.guessesPerGame(),
+            tally.floodSize(), tally.games / seconds));
+      }
+    }
+  }
+
+  // runs a sweep over the classic board sizes and a range of densities, playing the
+  // number of games given as the first argument (1000 by default) per configuration
+  public static void main(String[] args) {
+    int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int[][] sizes = { { 9, 9 }, { 16, 16 }, { 16, 30 }, { 50, 50 } };
+    double[] densities = { 0.10, 0.12, 0.15, 0.18, 0.2 };
+    WinRateEstimator.sweep(sizes, densities, games, 1L);
+  }
+}
+
+// examples and tests for the win rate estimator
+class ExamplesWinRateEstimator {
+
+  // tests that the results only depend on the seed, not on how the games run
+  void testEstimateReproducible(Tester t) {
+    WinRateEstimator beginner = new WinRateEstimator(9, 9, 10);
+    Tally serial = beginner.estimate(200, 3L, false);
+    Tally parallel = beginner.estimate(200, 3L, true);
+    t.checkExpect(parallel, serial);
+    t.checkExpect(serial.games, 200);
+    t.checkNumRange(serial.winRate(), 0.8, 1.0001);
+    t.checkExpect(serial.floodSize() > 1, true);
+  }
+
+  // tests that denser boards need more guesses and are won less often
+  void testEstimateDifficulty(Tester t) {
+    Tally easy = new WinRateEstimator(16, 16, 30).estimate(100, 9L, true);
+    Tally hard = new WinRateEstimator(16, 16, 60).estimate(100, 9L, true);
+    t.checkExpect(easy.winRate() > hard.winRate(), true);
+    t.checkExpect(easy.guessesPerGame() < hard.guessesPerGame(), true);
+    t.checkConstructorException(new IllegalArgumentException("Invalid Number of Mines"),
+        "WinRateEstimator", 9, 9, 81);
+  }
+}
@@ -0,0 +1,65 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// The board kernel on the incubating Vector API. Each row is processed as many cells at
+// a time as the preferred vector holds: the bytes at the eight neighbour offsets are
+// loaded as shifted vectors and combined lane by lane, and the cells left at the end of
+// a row are done by the scalar kernel. It lives in its own source root, apart from src,
+// which builds for Java 11: compiling it needs JDK 16 or later with
+// --add-modules jdk.incubator.vector and the compiled src classes on the classpath, and
+// running it needs the same module. Kernels loads it by name and falls back to
+// ScalarKernel when it is missing
+class VectorBoardKernel implements BoardKernel {
+  static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+  // writes the number of adjacent mines of every cell into the low bits of its byte
+  public void countAll(byte[] cells, int rows, int columns) {
+    int[] offsets = ScalarKernel.offsets(columns);
+    int stride = columns + 2;
+    int lanes = SPECIES.length();
+    for (int r = 1; r <= rows; r++) {
+      int from = r * stride + 1;
+      int to = from + columns;
+      int p = from;
+      for (; p + lanes <= to; p += lanes) {
+        ByteVector count = ByteVector.zero(SPECIES);
+        for (int k = 0; k < 8; k++) {
+          count = count.add(ByteVector.fromArray(SPECIES, cells, p + offsets[k])
+              .lanewise(VectorOperators.LSHR, 4).and((byte) 1));
+        }
+        ByteVector.fromArray(SPECIES, cells, p).and((byte) ~PaddedBoard.COUNT).or(count)
+            .intoArray(cells, p);
+      }
+      ScalarKernel.countRow(cells, offsets, p, to);
+    }
+  }
+
+  // marks the covered cells next to revealed cells and returns how many there are
+  public int frontier(byte[] cells, int rows, int columns, byte[] out) {
+    int[] offsets = ScalarKernel.offsets(columns);
+    int stride = columns + 2;
+    int lanes = SPECIES.length();
+    int count = 0;
+    for (int r = 1; r <= rows; r++) {
+      int from = r * stride + 1;
+      int to = from + columns;
+      int p = from;
+      for (; p + lanes <= to; p += lanes) {
+        ByteVector near = ByteVector.zero(SPECIES);
+        for (int k = 0; k < 8; k++) {
+          ByteVector n = ByteVector.fromArray(SPECIES, cells, p + offsets[k]);
+          near = near.or(n.lanewise(VectorOperators.LSHR, 5)
+              .and(n.lanewise(VectorOperators.LSHR, 7).not()));
+        }
+        ByteVector covered = ByteVector.fromArray(SPECIES, cells, p)
+            .lanewise(VectorOperators.LSHR, 5).not();
+        ByteVector edge = near.and(covered).and((byte) 1);
+        edge.intoArray(out, p);
+        count += edge.compare(VectorOperators.NE, (byte) 0).trueCount();
+      }
+      count += ScalarKernel.frontierRow(cells, offsets, p, to, out);
+    }
+    return count;
+  }
+}